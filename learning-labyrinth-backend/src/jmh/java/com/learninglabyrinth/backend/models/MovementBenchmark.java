@@ -0,0 +1,88 @@
+package com.learninglabyrinth.backend.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.learninglabyrinth.backend.robot.MovementEnum;
+import com.learninglabyrinth.backend.robot.MovementRecorder;
+import com.learninglabyrinth.backend.runner.WorkerProtocol;
+
+/**
+ * Cost of handling long movement histories: reading them back from a worker
+ * (which replaced parsing the printed list) and run-length encoding them
+ * for storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MovementBenchmark {
+  private static final MovementEnum[] STEPS = {
+      MovementEnum.FORWARD, MovementEnum.BACKWARD,
+      MovementEnum.ROTATE_LEFT, MovementEnum.ROTATE_RIGHT
+  };
+
+  @Param({"1000", "100000", "1000000"})
+  int moves;
+
+  List<MovementEnum> movements;
+  byte[] frame;
+  byte[] runs;
+
+  @Setup
+  public void setup() throws IOException {
+    // runs of forward moves broken up by turns, like a real solution
+    Random random = new Random(42);
+    MovementRecorder recorder = new MovementRecorder();
+    while (recorder.size() < moves - 1) {
+      MovementEnum step = random.nextInt(3) == 0 ? STEPS[random.nextInt(STEPS.length)]
+                                                 : MovementEnum.FORWARD;
+      recorder.add(step);
+    }
+    recorder.add(MovementEnum.SUCCESS);
+    movements = List.copyOf(recorder.asList());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    WorkerProtocol.writeResult(out, AttemptOutcomeEnum.SUCCESS, recorder);
+    out.flush();
+    frame = bytes.toByteArray();
+    runs = MovementListConverter.encode(movements);
+  }
+
+  @Benchmark
+  public List<MovementEnum> readWorkerResult() throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+    WorkerProtocol.readOutcome(in);
+    return WorkerProtocol.readMovements(in);
+  }
+
+  @Benchmark
+  public byte[] encodeRuns() {
+    return MovementListConverter.encode(movements);
+  }
+
+  @Benchmark
+  public List<MovementEnum> decodeRuns() {
+    return MovementListConverter.decode(runs);
+  }
+}
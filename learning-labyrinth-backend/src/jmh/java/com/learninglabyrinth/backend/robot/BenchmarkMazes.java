@@ -0,0 +1,89 @@
+package com.learninglabyrinth.backend.robot;
+
+import com.learninglabyrinth.backend.models.MazeLayout;
+
+/**
+ * Mazes shared by the benchmarks. Each is a single winding corridor, so
+ * solving it visits about half of its cells.
+ */
+public final class BenchmarkMazes {
+  // a right hand wall follower, as a student would write it
+  public static final String WALL_FOLLOWER =
+      "while (true) {\n"
+    + "  if (robot.scanRight() != GridTypeEnum.WALL) {\n"
+    + "    robot.rotateRight();\n"
+    + "    robot.moveForward();\n"
+    + "  } else if (robot.scanForward() != GridTypeEnum.WALL) {\n"
+    + "    robot.moveForward();\n"
+    + "  } else {\n"
+    + "    robot.rotateLeft();\n"
+    + "  }\n"
+    + "}\n";
+
+  private BenchmarkMazes() {
+  }
+
+  /**
+   * Builds a maze whose even rows are open and whose odd rows are walls with
+   * a gap at alternating ends. It starts in the top left corner and finishes
+   * at the far end of the corridor.
+   *
+   * @param size: The number of cells per side
+   * @return The layout string
+   */
+  public static String serpentine(int size) {
+    char[] cells = new char[size * size];
+    for (int y = 0; y < size; ++y) {
+      for (int x = 0; x < size; ++x) {
+        boolean open = y % 2 == 0 || x == gap(y, size);
+        cells[y * size + x] = open ? '0' : '1';
+      }
+    }
+    // a last wall row ends at its gap, a last open row at the end opposite
+    // the gap above it
+    int last = size - 1;
+    int finishX = last % 2 == 1 ? gap(last, size) : size - 1 - gap(last - 1, size);
+    cells[0] = '2';
+    cells[last * size + finishX] = '3';
+    return new String(cells);
+  }
+
+  private static int gap(int row, int size) {
+    return (row / 2) % 2 == 0 ? size - 1 : 0;
+  }
+
+  /**
+   * @param size: The number of cells per side
+   * @return A serpentine maze as it is stored
+   */
+  public static MazeLayout layout(int size) {
+    MazeLayout maze = new MazeLayout();
+    maze.id = (long) size;
+    maze.size = size;
+    maze.layout = serpentine(size);
+    return maze;
+  }
+
+  /**
+   * Runs WALL_FOLLOWER on the robot until it stops.
+   *
+   * @param robot: A robot at the start of the maze
+   * @return The robot
+   */
+  public static RobotClass solve(RobotClass robot) {
+    try {
+      while (true) {
+        if (robot.scanRight() != GridTypeEnum.WALL) {
+          robot.rotateRight();
+          robot.moveForward();
+        } else if (robot.scanForward() != GridTypeEnum.WALL) {
+          robot.moveForward();
+        } else {
+          robot.rotateLeft();
+        }
+      }
+    } catch (RobotTerminatedSignal signal) {
+      return robot;
+    }
+  }
+}
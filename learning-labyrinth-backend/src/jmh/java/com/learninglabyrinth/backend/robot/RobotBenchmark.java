@@ -0,0 +1,70 @@
+package com.learninglabyrinth.backend.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.learninglabyrinth.backend.models.MazeLayout;
+
+/**
+ * Cost of the robot engine on the smallest to the largest maze a user can
+ * create: building a robot, parsing a layout, scanning, and solving a maze
+ * with moves, rotations and scans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotBenchmark {
+  @Param({"2", "3", "5", "10", "15"})
+  int size;
+
+  MazeLayout maze;
+  RobotClass scanner;
+
+  @Setup
+  public void setup() {
+    maze = BenchmarkMazes.layout(size);
+    if (BenchmarkMazes.solve(new RobotClass(maze)).getStatus() != RobotStatusEnum.SUCCESS) {
+      throw new IllegalStateException("The wall follower does not solve the " + size + "x" + size + " maze");
+    }
+    // scans record nothing, so one robot can scan for the whole trial
+    scanner = new RobotClass(maze, Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  public RobotClass construct() {
+    return new RobotClass(maze);
+  }
+
+  @Benchmark
+  public MazeGrid parseLayout() {
+    return MazeGrid.parse(maze.layout, maze.size);
+  }
+
+  @Benchmark
+  public void scanAllDirections(Blackhole blackhole) {
+    blackhole.consume(scanner.scanLeft());
+    blackhole.consume(scanner.scanRight());
+    blackhole.consume(scanner.scanForward());
+    blackhole.consume(scanner.scanBackward());
+  }
+
+  @Benchmark
+  public RobotClass solve() {
+    return BenchmarkMazes.solve(new RobotClass(maze));
+  }
+}
@@ -0,0 +1,50 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.learninglabyrinth.backend.robot.BenchmarkMazes;
+
+/**
+ * Latency of compiling a user's code in process, and of defining classes
+ * compiled earlier, as the executor workers do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompileBenchmark {
+  String userCodeClass;
+  Map<String, byte[]> compiledClasses;
+
+  @Setup
+  public void setup() throws ClassNotFoundException {
+    userCodeClass = UserCodeWrapper.top + BenchmarkMazes.WALL_FOLLOWER + UserCodeWrapper.bottom;
+    UserClassLoader loader = new UserClassLoader();
+    loader.loadClass("UserCode", userCodeClass);
+    compiledClasses = loader.getCompiledClasses();
+  }
+
+  @Benchmark
+  public Class<?> compileAndLoad() throws ClassNotFoundException {
+    return new UserClassLoader().loadClass("UserCode", userCodeClass);
+  }
+
+  @Benchmark
+  public Class<?> loadCompiled() throws ClassNotFoundException {
+    return new UserClassLoader(compiledClasses).loadClass("UserCode");
+  }
+}
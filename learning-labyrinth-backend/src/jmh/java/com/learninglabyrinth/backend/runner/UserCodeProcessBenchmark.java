@@ -0,0 +1,65 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.BenchmarkMazes;
+import com.learninglabyrinth.backend.robot.RobotClass;
+
+/**
+ * End to end latency of running an attempt in a fresh executor process:
+ * JVM start up, compiling the user's code and solving the maze. Needs the
+ * executor jar in /app, as in the backend's container, or in the directory
+ * given with -p executorDirectory=<dir>.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserCodeProcessBenchmark {
+  private static final String EXECUTOR_JAR = "user-code-executor-0.0.1-SNAPSHOT.jar";
+
+  @Param({"2", "15"})
+  int size;
+
+  @Param({"/app"})
+  String executorDirectory;
+
+  String layout;
+  UserCodeProcess process;
+
+  @Setup
+  public void setup() {
+    File directory = new File(executorDirectory);
+    if (!new File(directory, EXECUTOR_JAR).isFile()) {
+      throw new IllegalStateException("Build the executor jar and copy it to " + directory);
+    }
+    layout = BenchmarkMazes.serpentine(size);
+    process = new UserCodeProcess(directory, EXECUTOR_JAR);
+  }
+
+  @Benchmark
+  public WorkerResult startProcess() {
+    WorkerResult result = process.startProcess(BenchmarkMazes.WALL_FOLLOWER, layout,
+        5000, RobotClass.DEFAULT_MAX_ACTIONS, 65536);
+    if (result.outcome != AttemptOutcomeEnum.SUCCESS) {
+      throw new IllegalStateException("Attempt ended with " + result.outcome);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,62 @@
+package com.learninglabyrinth.backend.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and errors of the requests made to one endpoint.
+ */
+final class EndpointStats {
+  private final String name;
+  private long[] latencies = new long[1024]; // nanoseconds
+  private int count;
+  private int errors;
+
+  EndpointStats(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @param latencyNanos: How long the request took
+   * @param isError:      True if it failed or got an error status
+   */
+  synchronized void record(long latencyNanos, boolean isError) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = latencyNanos;
+    if (isError) {
+      ++errors;
+    }
+  }
+
+  /**
+   * @param seconds: How long the load test ran
+   * @return One row of the report
+   */
+  synchronized String report(double seconds) {
+    long[] sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+    return String.format("%-32s %9d %7d %6.1f%% %8.1f %9.1f %9.1f %9.1f",
+        name, count, errors, count == 0 ? 0.0 : 100.0 * errors / count,
+        count / seconds, millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+        millis(count == 0 ? 0 : sorted[count - 1]));
+  }
+
+  static String header() {
+    return String.format("%-32s %9s %7s %7s %8s %9s %9s %9s",
+        "Endpoint", "Requests", "Errors", "Error%", "Req/s", "p50 ms", "p99 ms", "Max ms");
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    // nearest rank
+    int rank = (int) Math.ceil(fraction * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
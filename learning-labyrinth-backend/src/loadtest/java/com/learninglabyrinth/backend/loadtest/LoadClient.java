@@ -0,0 +1,105 @@
+package com.learninglabyrinth.backend.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Calls the backend's endpoints and records each call's latency and whether
+ * it failed under the endpoint's name.
+ */
+final class LoadClient {
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+  private final HttpClient client;
+  private final ObjectMapper objectMapper;
+  private final String baseUrl;
+  private final Map<String, EndpointStats> stats;
+  private volatile boolean recording;
+
+  /**
+   * @param baseUrl: The backend's address, e.g. http://localhost:8080
+   */
+  LoadClient(String baseUrl) {
+    this.client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    this.objectMapper = new ObjectMapper();
+    this.baseUrl = baseUrl;
+    this.stats = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param recording: False while seeding, so set up calls are not reported
+   */
+  void setRecording(boolean recording) {
+    this.recording = recording;
+  }
+
+  /**
+   * @return Statistics by endpoint name
+   */
+  Map<String, EndpointStats> getStats() {
+    return stats;
+  }
+
+  /**
+   * Sends a request and parses the JSON response.
+   *
+   * @param method: The HTTP method
+   * @param path:   The endpoint's path, also its name in the report
+   * @param query:  Query parameters, may be empty
+   * @param body:   Object sent as the JSON body, or null for none
+   * @return The parsed response, null if it was empty, failed or had an
+   *         error status
+   */
+  JsonNode call(String method, String path, Map<String, Object> query, Object body) {
+    StringBuilder uri = new StringBuilder(baseUrl).append(path);
+    char separator = '?';
+    for (Map.Entry<String, Object> param : query.entrySet()) {
+      uri.append(separator).append(param.getKey()).append('=')
+         .append(URLEncoder.encode(String.valueOf(param.getValue()), StandardCharsets.UTF_8));
+      separator = '&';
+    }
+    long start = System.nanoTime();
+    boolean isError = true;
+    try {
+      HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri.toString()))
+          .timeout(REQUEST_TIMEOUT);
+      if (body == null) {
+        request.method(method, HttpRequest.BodyPublishers.noBody());
+      } else {
+        request.header("Content-Type", "application/json")
+               .method(method, HttpRequest.BodyPublishers.ofByteArray(
+                   objectMapper.writeValueAsBytes(body)));
+      }
+      HttpResponse<byte[]> response = client.send(request.build(),
+          HttpResponse.BodyHandlers.ofByteArray());
+      isError = response.statusCode() >= 400;
+      if (isError || response.body().length == 0) {
+        return null;
+      }
+      return objectMapper.readTree(response.body());
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } finally {
+      if (recording) {
+        stats.computeIfAbsent(method + " " + path, EndpointStats::new)
+             .record(System.nanoTime() - start, isError);
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.learninglabyrinth.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.learninglabyrinth.backend.BackendApplication;
+
+/**
+ * Replays student sessions against the attempt endpoints and reports the
+ * throughput, latency and error rate of each endpoint.
+ *
+ * Runs against the backend given by --target, or else starts one in process
+ * on an in-memory H2 database. See LoadTestOptions for the other options.
+ */
+public final class LoadTest {
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    ConfigurableApplicationContext backend = null;
+    String target = options.target;
+    if (target == null) {
+      backend = startEmbeddedBackend(options);
+      target = "http://localhost:" + ((WebServerApplicationContext) backend).getWebServer().getPort();
+    }
+    try {
+      LoadClient client = new LoadClient(target);
+      SolutionCorpus corpus = SolutionCorpus.load();
+      seed(client, options);
+      client.setRecording(true);
+      double seconds = run(client, corpus, options);
+      report(client, options, seconds);
+    } finally {
+      if (backend != null) {
+        backend.close();
+      }
+    }
+  }
+
+  /**
+   * @param userNumber: Which of the load test's students
+   * @return The student's user name and password
+   */
+  static Map<String, String> credentials(int userNumber) {
+    return Map.of("username", "loadtest-user-" + userNumber,
+                  "password", "loadtest-password-" + userNumber);
+  }
+
+  private static ConfigurableApplicationContext startEmbeddedBackend(LoadTestOptions options) {
+    List<String> properties = new ArrayList<>(List.of(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "--labyrinth.session.persist=false"));
+    if (options.executorDirectory != null) {
+      properties.add("--labyrinth.executor.directory=" + options.executorDirectory);
+    }
+    return SpringApplication.run(BackendApplication.class, properties.toArray(new String[0]));
+  }
+
+  /**
+   * Creates the students' accounts, which may already exist, and some mazes
+   * if there are none.
+   */
+  private static void seed(LoadClient client, LoadTestOptions options) {
+    for (int i = 0; i < options.users; ++i) {
+      client.call("POST", "/account/signup", Map.of(), credentials(i));
+    }
+    JsonNode login = client.call("POST", "/account/login", Map.of(), credentials(0));
+    if (login == null) {
+      throw new IllegalStateException("Could not log in to create mazes");
+    }
+    String token = login.get("token").asText();
+    JsonNode mazes = client.call("GET", "/mazes/getMazes", Map.of("token", token), null);
+    if (mazes != null && mazes.size() > 0) {
+      client.call("GET", "/account/logout", Map.of("token", token), null);
+      return;
+    }
+    for (int i = 0; i < options.mazes; ++i) {
+      // spread from small to the largest maze allowed
+      int size = options.mazes == 1 ? 10 : 5 + 10 * i / (options.mazes - 1);
+      client.call("POST", "/mazes/createMaze",
+          Map.of("size", size, "layout", serpentine(size), "creatorToken", token), null);
+    }
+    client.call("GET", "/account/logout", Map.of("token", token), null);
+  }
+
+  /**
+   * Starts the students spread over the ramp up and waits for them to finish.
+   *
+   * @return The seconds from the first login until the last student stopped
+   */
+  private static double run(LoadClient client, SolutionCorpus corpus, LoadTestOptions options)
+      throws InterruptedException {
+    System.out.println("Running " + options.users + " users for " + options.durationSeconds
+        + "s after a " + options.rampUpSeconds + "s ramp up");
+    ExecutorService users = Executors.newFixedThreadPool(options.users);
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(options.rampUpSeconds + options.durationSeconds);
+    for (int i = 0; i < options.users; ++i) {
+      long delayMs = TimeUnit.SECONDS.toMillis(options.rampUpSeconds) * i / options.users;
+      VirtualUser user = new VirtualUser(client, corpus, options, i, end);
+      users.execute(() -> {
+        try {
+          Thread.sleep(delayMs);
+          user.run();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    users.shutdown();
+    // let requests still running when time is up finish
+    if (!users.awaitTermination(options.rampUpSeconds + options.durationSeconds + 120,
+                                TimeUnit.SECONDS)) {
+      users.shutdownNow();
+    }
+    return (System.nanoTime() - start) / 1e9;
+  }
+
+  private static void report(LoadClient client, LoadTestOptions options, double seconds) {
+    System.out.println();
+    System.out.printf("%d users, %.0f ms mean think time, %d test runs per attempt, %.1f s%n",
+        options.users, (double) options.thinkMs, options.testRuns, seconds);
+    System.out.println(EndpointStats.header());
+    for (EndpointStats stats : new TreeMap<>(client.getStats()).values()) {
+      System.out.println(stats.report(seconds));
+    }
+  }
+
+  /**
+   * @param size: The number of cells per side
+   * @return A maze that is one winding corridor from the top left corner
+   */
+  private static String serpentine(int size) {
+    char[] cells = new char[size * size];
+    for (int y = 0; y < size; ++y) {
+      int gap = (y / 2) % 2 == 0 ? size - 1 : 0;
+      for (int x = 0; x < size; ++x) {
+        cells[y * size + x] = y % 2 == 0 || x == gap ? '0' : '1';
+      }
+    }
+    int last = size - 1;
+    int lastGap = (last / 2) % 2 == 0 ? size - 1 : 0;
+    int gapAbove = ((last - 1) / 2) % 2 == 0 ? size - 1 : 0;
+    cells[0] = '2';
+    cells[last * size + (last % 2 == 1 ? lastGap : size - 1 - gapAbove)] = '3';
+    return new String(cells);
+  }
+}
@@ -0,0 +1,60 @@
+package com.learninglabyrinth.backend.loadtest;
+
+/**
+ * Command line options of the load test, given as --name=value.
+ */
+final class LoadTestOptions {
+  String target;              // backend to load, an embedded one if not given
+  String executorDirectory;   // where the embedded backend finds the executor jar
+  int users = 30;             // students working at the same time
+  int durationSeconds = 60;   // how long they work, after ramping up
+  int rampUpSeconds = 10;     // time over which the students log in
+  long thinkMs = 2000;        // mean pause between a student's requests
+  int testRuns = 3;           // test runs before each submitted attempt
+  int mazes = 3;              // mazes created when the backend has none
+
+  /**
+   * @param args: The command line
+   * @return The options
+   * @throws IllegalArgumentException: Thrown for an unknown option
+   */
+  static LoadTestOptions parse(String[] args) {
+    LoadTestOptions options = new LoadTestOptions();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      String value = arg.substring(equals + 1);
+      switch (arg.substring(2, equals)) {
+        case "target":
+          options.target = value;
+          break;
+        case "executor-directory":
+          options.executorDirectory = value;
+          break;
+        case "users":
+          options.users = Integer.parseInt(value);
+          break;
+        case "duration-seconds":
+          options.durationSeconds = Integer.parseInt(value);
+          break;
+        case "ramp-up-seconds":
+          options.rampUpSeconds = Integer.parseInt(value);
+          break;
+        case "think-ms":
+          options.thinkMs = Long.parseLong(value);
+          break;
+        case "test-runs":
+          options.testRuns = Integer.parseInt(value);
+          break;
+        case "mazes":
+          options.mazes = Integer.parseInt(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + arg);
+      }
+    }
+    return options;
+  }
+}
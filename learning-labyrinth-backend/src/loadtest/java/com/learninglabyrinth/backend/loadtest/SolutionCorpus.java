@@ -0,0 +1,72 @@
+package com.learninglabyrinth.backend.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Student solutions replayed by the load test, read from the solutions
+ * folder on the class path. solutions/index.txt lists each file with how
+ * often it is picked relative to the others.
+ */
+final class SolutionCorpus {
+  private final List<String> solutions = new ArrayList<>();
+  private final List<Integer> cumulativeWeights = new ArrayList<>();
+  private int totalWeight;
+
+  /**
+   * @return The corpus packaged with the load test
+   * @throws IOException: Thrown if a listed solution is missing
+   */
+  static SolutionCorpus load() throws IOException {
+    SolutionCorpus corpus = new SolutionCorpus();
+    try (BufferedReader index = new BufferedReader(new InputStreamReader(
+        open("index.txt"), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = index.readLine()) != null) {
+        line = line.strip();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split("\\s+");
+        try (InputStream solution = open(fields[0])) {
+          corpus.add(new String(solution.readAllBytes(), StandardCharsets.UTF_8),
+                     Integer.parseInt(fields[1]));
+        }
+      }
+    }
+    return corpus;
+  }
+
+  /**
+   * @param random: The picking user's random numbers
+   * @return A solution, picked by weight
+   */
+  String pick(Random random) {
+    int target = random.nextInt(totalWeight);
+    int i = 0;
+    while (cumulativeWeights.get(i) <= target) {
+      ++i;
+    }
+    return solutions.get(i);
+  }
+
+  private void add(String solution, int weight) {
+    solutions.add(solution);
+    totalWeight += weight;
+    cumulativeWeights.add(totalWeight);
+  }
+
+  private static InputStream open(String name) throws IOException {
+    InputStream in = SolutionCorpus.class.getResourceAsStream("/solutions/" + name);
+    if (in == null) {
+      throw new IOException("No solution named " + name);
+    }
+    return in;
+  }
+}
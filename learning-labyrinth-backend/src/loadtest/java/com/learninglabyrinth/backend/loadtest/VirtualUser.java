@@ -0,0 +1,84 @@
+package com.learninglabyrinth.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One student's session: log in, list the mazes, then keep test running a
+ * solution a few times before submitting it, pausing between requests as a
+ * student reading the results would.
+ */
+final class VirtualUser implements Runnable {
+  private final LoadClient client;
+  private final SolutionCorpus corpus;
+  private final LoadTestOptions options;
+  private final Map<String, String> credentials;
+  private final long endNanos;
+  private final Random random;
+
+  VirtualUser(LoadClient client, SolutionCorpus corpus, LoadTestOptions options,
+              int userNumber, long endNanos) {
+    this.client = client;
+    this.corpus = corpus;
+    this.options = options;
+    this.credentials = LoadTest.credentials(userNumber);
+    this.endNanos = endNanos;
+    this.random = new Random(userNumber);
+  }
+
+  @Override
+  public void run() {
+    JsonNode login = client.call("POST", "/account/login", Map.of(), credentials);
+    if (login == null) {
+      return;
+    }
+    String token = login.get("token").asText();
+    try {
+      long mazeId = pickMaze(token);
+      while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+        Map<String, String> userCode = Map.of("userCode", corpus.pick(random));
+        Map<String, Object> attempt = Map.of("token", token, "mazeId", mazeId);
+        for (int i = 0; i < options.testRuns && System.nanoTime() < endNanos; ++i) {
+          client.call("POST", "/mazeAttempt/testAttempt", attempt, userCode);
+          think();
+        }
+        client.call("POST", "/mazeAttempt/attemptMaze", attempt, userCode);
+        think();
+        // now and then go back to the maze list and pick another
+        if (random.nextInt(5) == 0) {
+          mazeId = pickMaze(token);
+          think();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      client.call("GET", "/account/logout", Map.of("token", token), null);
+    }
+  }
+
+  private long pickMaze(String token) {
+    JsonNode mazes = client.call("GET", "/mazes/getMazes", Map.of("token", token), null);
+    List<Long> ids = new ArrayList<>();
+    if (mazes != null) {
+      mazes.forEach(maze -> ids.add(maze.get("id").asLong()));
+    }
+    if (ids.isEmpty()) {
+      throw new IllegalStateException("No mazes to attempt");
+    }
+    return ids.get(random.nextInt(ids.size()));
+  }
+
+  private void think() throws InterruptedException {
+    if (options.thinkMs > 0) {
+      // exponentially distributed around the mean, capped so one user does
+      // not sit out most of the run
+      double pause = -Math.log(1 - random.nextDouble()) * options.thinkMs;
+      Thread.sleep((long) Math.min(pause, 5.0 * options.thinkMs));
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.learninglabyrinth.backend.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content hashes used as cache keys for user code and maze layouts.
+ */
+public final class ContentHash {
+
+  private ContentHash() {
+  }
+
+  /**
+   * @param content: The text to hash
+   * @return The hex encoded SHA-256 hash of the text
+   */
+  public static String sha256(String content) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(
+          digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
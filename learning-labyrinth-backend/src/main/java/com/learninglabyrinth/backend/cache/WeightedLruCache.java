@@ -0,0 +1,120 @@
+package com.learninglabyrinth.backend.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe least-recently-used cache bounded by the total weight of its
+ * values rather than by entry count. Hits, misses and evictions are counted
+ * so they can be published as metrics.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class WeightedLruCache<K, V> {
+  private final LinkedHashMap<K, V> entries;
+  private final ToLongFunction<V> weigher;
+  private final long maxWeight;
+  private long weight;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Constructor.
+   *
+   * @param maxWeight: The total weight the cache may hold
+   * @param weigher:   Computes the weight of a value (e.g. its size in bytes)
+   */
+  public WeightedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.weigher = weigher;
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Retrieves a value and marks it as most recently used.
+   *
+   * @param key: The key to look up
+   * @return The cached value, or null if there is none
+   */
+  public synchronized V get(K key) {
+    V value = entries.get(key);
+    if (value == null) {
+      ++missCount;
+    } else {
+      ++hitCount;
+    }
+    return value;
+  }
+
+  /**
+   * Stores a value, evicting the least recently used entries until the cache
+   * is within its weight limit. Values heavier than the whole cache are not
+   * stored, and the key's old value is removed so it is not returned instead.
+   *
+   * @param key:   The key to store the value under
+   * @param value: The value to store
+   */
+  public synchronized void put(K key, V value) {
+    long valueWeight = weigher.applyAsLong(value);
+    if (valueWeight > maxWeight) {
+      V stale = entries.remove(key);
+      if (stale != null) {
+        weight -= weigher.applyAsLong(stale);
+      }
+      return;
+    }
+    V previous = entries.put(key, value);
+    if (previous != null) {
+      weight -= weigher.applyAsLong(previous);
+    }
+    weight += valueWeight;
+    Iterator<V> eldest = entries.values().iterator();
+    while (weight > maxWeight) {
+      weight -= weigher.applyAsLong(eldest.next());
+      eldest.remove();
+      ++evictionCount;
+    }
+  }
+
+  /**
+   * Removes every entry matching the predicate. Removals are not counted as
+   * evictions.
+   *
+   * @param predicate: Selects the entries to remove
+   */
+  public synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+    Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<K, V> entry = iterator.next();
+      if (predicate.test(entry.getKey(), entry.getValue())) {
+        weight -= weigher.applyAsLong(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long weight() {
+    return weight;
+  }
+
+  public synchronized long hitCount() {
+    return hitCount;
+  }
+
+  public synchronized long missCount() {
+    return missCount;
+  }
+
+  public synchronized long evictionCount() {
+    return evictionCount;
+  }
+}
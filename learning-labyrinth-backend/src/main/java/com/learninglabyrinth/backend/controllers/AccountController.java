@@ -1,14 +1,18 @@
 package com.learninglabyrinth.backend.controllers;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.learninglabyrinth.backend.dto.AccountImportResult;
 import com.learninglabyrinth.backend.dto.LoginInfo;
 import com.learninglabyrinth.backend.dto.LoginResponse;
 import com.learninglabyrinth.backend.models.Account;
 import com.learninglabyrinth.backend.services.AccountService;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The Account Controller handles the requests to and from the client server and
@@ -41,6 +45,9 @@ public class AccountController {
 	public Account createAccount(@RequestBody Account account) {
 		try {
 			return service.creatAccount(account);
+		} catch (RejectedExecutionException e) {
+			// too many passwords waiting to be hashed
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
 		} catch (IllegalAccessException e) {
 			// an account with item id already exists
 			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
@@ -56,6 +63,34 @@ public class AccountController {
 		}
 	}
 
+	/**
+	 * Calls the AccountService to create the accounts of a whole class.
+	 * 
+	 * @param    token: The login token of an admin
+	 * @param accounts: The accounts to be saved in the database
+	 * @return The number of accounts created and the user names skipped
+	 */
+	@PostMapping("/import")
+	public AccountImportResult importAccounts(@RequestParam UUID token,
+	                                          @RequestBody List<Account> accounts) {
+		try {
+			return service.importAccounts(token, accounts);
+		} catch (RejectedExecutionException e) {
+			// too many passwords waiting to be hashed
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
+		} catch (IllegalAccessException e) {
+			// not logged in as an admin
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+		} catch (IllegalArgumentException e) {
+			// too many accounts
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+			    "At most " + AccountService.MAX_IMPORT_SIZE + " accounts may be imported at once");
+		} catch (DataIntegrityViolationException e) {
+			// a user name was taken during the import, nothing was saved
+			throw new ResponseStatusException(HttpStatus.CONFLICT);
+		}
+	}
+
 	/**
 	 * Calls the AccountService to retrieve an account.
 	 * 
@@ -82,6 +117,9 @@ public class AccountController {
 	public LoginResponse login(@RequestBody LoginInfo credentials) {
 		try {
 			return service.login(credentials);
+		} catch (RejectedExecutionException e) {
+			// too many passwords waiting to be hashed
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
 		} catch (Exception e) {
 			// user name or password doesn't exist
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
@@ -109,6 +147,9 @@ public class AccountController {
                             @RequestBody Account account) {
 		try {
 			service.updateAccount(token, account);
+		} catch (RejectedExecutionException e) {
+			// too many passwords waiting to be hashed
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
 		} catch (IllegalStateException e) {
 			// user name already taken
 			throw new ResponseStatusException(HttpStatus.CONFLICT);
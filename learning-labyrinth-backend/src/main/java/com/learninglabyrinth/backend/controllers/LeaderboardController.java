@@ -0,0 +1,69 @@
+package com.learninglabyrinth.backend.controllers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.learninglabyrinth.backend.dto.LeaderboardRow;
+import com.learninglabyrinth.backend.models.Account;
+import com.learninglabyrinth.backend.models.LeaderboardEntry;
+import com.learninglabyrinth.backend.repositories.AccountRepository;
+import com.learninglabyrinth.backend.services.LeaderboardService;
+
+/**
+ * Serves the per-maze leaderboards.
+ */
+@RestController
+@RequestMapping("/leaderboard")
+@CrossOrigin
+public class LeaderboardController {
+  private static final int MAX_LIMIT = 100;
+
+  private final LeaderboardService service;
+  private final AccountRepository accountRepository;
+
+  public LeaderboardController(LeaderboardService service, AccountRepository accountRepository) {
+    this.service = service;
+    this.accountRepository = accountRepository;
+  }
+
+  /**
+   * The accounts that solved the maze in the fewest moves, best first, with
+   * each account's best score.
+   */
+  @GetMapping("/top")
+  public List<LeaderboardRow> getTop(@RequestParam long mazeId,
+                                     @RequestParam(defaultValue = "10") int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit (" + limit + ") must be between 1 and " + MAX_LIMIT);
+    }
+
+    List<LeaderboardEntry> top = service.getTop(mazeId, limit);
+    // look the names up in one query, they may change so are not stored
+    List<Long> accountIds = new ArrayList<>(top.size());
+    for (LeaderboardEntry entry : top) {
+      accountIds.add(entry.accountId);
+    }
+    Map<Long, String> usernames = new HashMap<>();
+    for (Account account : accountRepository.findAllById(accountIds)) {
+      usernames.put(account.id, account.username);
+    }
+
+    List<LeaderboardRow> rows = new ArrayList<>(top.size());
+    for (LeaderboardEntry entry : top) {
+      LeaderboardRow row = new LeaderboardRow();
+      row.rank = rows.size() + 1;
+      row.accountId = entry.accountId;
+      row.username = usernames.get(entry.accountId);
+      row.numMoves = entry.numMoves;
+      row.date = entry.date;
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -1,16 +1,32 @@
 package com.learninglabyrinth.backend.controllers;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
-import com.learninglabyrinth.backend.services.AccountService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.learninglabyrinth.backend.dto.AttemptJobStatus;
+import com.learninglabyrinth.backend.dto.AttemptResourceUsage;
+import com.learninglabyrinth.backend.dto.MazeAttemptCost;
+import com.learninglabyrinth.backend.dto.MazeAttemptFilter;
+import com.learninglabyrinth.backend.dto.MazeAttemptPage;
+import com.learninglabyrinth.backend.dto.MazeAttemptReplay;
+import com.learninglabyrinth.backend.dto.MazeAttemptSummary;
 import com.learninglabyrinth.backend.dto.UserCode;
+import com.learninglabyrinth.backend.models.Account;
 import com.learninglabyrinth.backend.models.MazeAttempt;
+import com.learninglabyrinth.backend.services.AttemptJobService;
 import com.learninglabyrinth.backend.services.MazeAttemptService;
+import com.learninglabyrinth.backend.services.SessionStore;
 
 /**
  * Manage MazeAttempt objects (models)
@@ -21,32 +37,152 @@ import com.learninglabyrinth.backend.services.MazeAttemptService;
 @RequestMapping("/mazeAttempt")
 @CrossOrigin
 public class MazeAttemptController {
+  private static final long JOB_STREAM_TIMEOUT_MS = 120000;
+  private static final int MAX_PAGE_SIZE = 1000;
+
   private final MazeAttemptService service;
+  private final AttemptJobService jobService;
+  private final SessionStore sessionStore;
 
-  public MazeAttemptController(MazeAttemptService service) {
+  public MazeAttemptController(MazeAttemptService service, AttemptJobService jobService,
+                               SessionStore sessionStore) {
     this.service = service;
+    this.jobService = jobService;
+    this.sessionStore = sessionStore;
   }
 
   /**
-   * Get all the user's maze attempts.
+   * Get maze attempts matching the optional filters, a page at a time in id
+   * order. Pass the returned nextCursor as after to get the next page. The
+   * attempts include every student's code, so only admins may list them.
    */
   @GetMapping("/getMazeAttempts")
-  public List<MazeAttempt> getMazeAttempts() {
+  public MazeAttemptPage getMazeAttempts(@RequestParam UUID token,
+                                         @RequestParam(required = false) Long mazeId,
+                                         @RequestParam(required = false) Long accountId,
+                                         @RequestParam(required = false) Boolean isSuccess,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestParam(defaultValue = "100") int limit) {
+    requireAdmin(token);
+    checkLimit(limit);
+
     try {
-      return service.getMazeAttempts();
+      return service.getMazeAttempts(createFilter(mazeId, accountId, isSuccess, from, to), after, limit);
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED);
     }
   }
 
+  /**
+   * Export every maze attempt matching the optional filters as newline
+   * delimited JSON, one attempt per line, streamed as it is read. Only admins
+   * may export.
+   */
+  @GetMapping(path = "/export", produces = "application/x-ndjson")
+  public StreamingResponseBody exportMazeAttempts(@RequestParam UUID token,
+                                                  @RequestParam(required = false) Long mazeId,
+                                                  @RequestParam(required = false) Long accountId,
+                                                  @RequestParam(required = false) Boolean isSuccess,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+    // checked before streaming starts, so the status can still be set
+    requireAdmin(token);
+    MazeAttemptFilter filter = createFilter(mazeId, accountId, isSuccess, from, to);
+    return out -> service.exportMazeAttempts(filter, out);
+  }
+
+  /**
+   * Get what the attempts on each maze cost the executor, optionally only
+   * counting one account's attempts, mazes with the highest average CPU time
+   * first. Only admins may read it.
+   */
+  @GetMapping("/resources/byMaze")
+  public List<AttemptResourceUsage> getResourceUsageByMaze(@RequestParam UUID token,
+                                                           @RequestParam(required = false) Long accountId,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+    requireAdmin(token);
+    checkLimit(limit);
+
+    try {
+      return service.getResourceUsageByMaze(accountId, limit);
+    } catch (Exception e) {
+      throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED);
+    }
+  }
+
+  /**
+   * Get what each account's attempts cost the executor, optionally only
+   * counting attempts on one maze, accounts with the highest average CPU time
+   * first. Only admins may read it.
+   */
+  @GetMapping("/resources/byAccount")
+  public List<AttemptResourceUsage> getResourceUsageByAccount(@RequestParam UUID token,
+                                                              @RequestParam(required = false) Long mazeId,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+    requireAdmin(token);
+    checkLimit(limit);
+
+    try {
+      return service.getResourceUsageByAccount(mazeId, limit);
+    } catch (Exception e) {
+      throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED);
+    }
+  }
+
+  /**
+   * Get the attempts that cost the executor the most CPU time, optionally on
+   * one maze and of one account. Only admins may read them.
+   */
+  @GetMapping("/resources/mostExpensive")
+  public List<MazeAttemptCost> getMostExpensive(@RequestParam UUID token,
+                                                @RequestParam(required = false) Long mazeId,
+                                                @RequestParam(required = false) Long accountId,
+                                                @RequestParam(defaultValue = "100") int limit) {
+    requireAdmin(token);
+    checkLimit(limit);
+
+    try {
+      return service.getMostExpensive(mazeId, accountId, limit);
+    } catch (Exception e) {
+      throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED);
+    }
+  }
+
+  private void requireAdmin(UUID token) {
+    Account account = sessionStore.get(token);
+    if (account == null || !account.isAdmin) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only an admin may read every student's attempts");
+    }
+  }
+
+  private static void checkLimit(int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit (" + limit + ") must be between 1 and " + MAX_PAGE_SIZE);
+    }
+  }
+
+  private static MazeAttemptFilter createFilter(Long mazeId, Long accountId, Boolean isSuccess,
+                                                LocalDateTime from, LocalDateTime to) {
+    MazeAttemptFilter filter = new MazeAttemptFilter();
+    filter.mazeId = mazeId;
+    filter.accountId = accountId;
+    filter.isSuccess = isSuccess;
+    filter.from = from;
+    filter.to = to;
+    return filter;
+  }
+
   @GetMapping("/best")
   public MazeAttempt getBestMazeAttempt(@RequestParam UUID userToken, @RequestParam Long mazeId) {
-    if (!AccountService.hashMap.containsKey(userToken)) {
+    Account account = sessionStore.get(userToken);
+    if (account == null) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + userToken.toString() + ")");
     }
 
     try {
-      MazeAttempt bestAttempt = service.findBest(mazeId, AccountService.hashMap.get(userToken).id);
+      MazeAttempt bestAttempt = service.findBest(mazeId, account.id);
       return bestAttempt;
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.OK, "No best or most recent attempt exists for the requested user.");
@@ -55,17 +191,61 @@ public class MazeAttemptController {
 
   @GetMapping("/mostRecent")
   public MazeAttempt getMostRecentMazeAttempt(@RequestParam UUID userToken, @RequestParam Long mazeId) {
-    if (!AccountService.hashMap.containsKey(userToken)) {
+    Account account = sessionStore.get(userToken);
+    if (account == null) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + userToken.toString() + ")");
     }
 
     try {
-      return service.findMostRecent(mazeId, AccountService.hashMap.get(userToken).id);
+      return service.findMostRecent(mazeId, account.id);
     } catch (Exception e) {
       throw new ResponseStatusException(HttpStatus.OK, "No attempt exists for the requested user.");
     }
   }
 
+  /**
+   * Score and date of the user's best attempt on the maze, or of their most
+   * recent one if none succeeded. Use /replay to load its code and movements.
+   */
+  @GetMapping("/best/summary")
+  public MazeAttemptSummary getBestMazeAttemptSummary(@RequestParam UUID userToken, @RequestParam Long mazeId) {
+    Account account = sessionStore.get(userToken);
+    if (account == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + userToken.toString() + ")");
+    }
+
+    return service.findBestSummary(mazeId, account.id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No best or most recent attempt exists for the requested user."));
+  }
+
+  /**
+   * Score and date of the user's most recent attempt on the maze.
+   */
+  @GetMapping("/mostRecent/summary")
+  public MazeAttemptSummary getMostRecentMazeAttemptSummary(@RequestParam UUID userToken, @RequestParam Long mazeId) {
+    Account account = sessionStore.get(userToken);
+    if (account == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + userToken.toString() + ")");
+    }
+
+    return service.findMostRecentSummary(mazeId, account.id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No attempt exists for the requested user."));
+  }
+
+  /**
+   * Code and movements of one of the user's attempts, for replaying it.
+   */
+  @GetMapping("/replay")
+  public MazeAttemptReplay getMazeAttemptReplay(@RequestParam UUID userToken, @RequestParam Long attemptId) {
+    Account account = sessionStore.get(userToken);
+    if (account == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + userToken.toString() + ")");
+    }
+
+    return service.findReplay(attemptId, account.id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No attempt with the id " + attemptId + " exists for the requested user."));
+  }
+
   /**
    * Run the given Java text to complete the maze.
    */
@@ -95,4 +275,62 @@ public class MazeAttemptController {
       throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED);
     }
   }
+
+  /**
+   * Queue the given Java text to run against the maze and return a job id
+   * right away. The attempt is saved unless isTest is true. Responds with 429
+   * when too many attempts are already waiting.
+   */
+  @PostMapping("/submitAttempt")
+  public AttemptJobStatus submitAttempt(@RequestParam UUID token,
+                                        @RequestParam Long mazeId,
+                                        @RequestParam(defaultValue = "false") boolean isTest,
+                                        @RequestBody UserCode userCode) {
+    if (!sessionStore.containsKey(token)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "There is currently no logged-in user with the provided token (" + token.toString() + ")");
+    }
+
+    try {
+      UUID jobId = jobService.submit(token, mazeId, userCode.userCode, !isTest);
+      return jobService.getStatus(jobId);
+    } catch (RejectedExecutionException e) {
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts are waiting to run, try again shortly.");
+    }
+  }
+
+  /**
+   * Poll the status of a submitted attempt. The attempt is included once the
+   * job is DONE.
+   */
+  @GetMapping("/job")
+  public AttemptJobStatus getJob(@RequestParam UUID jobId) {
+    AttemptJobStatus status = jobService.getStatus(jobId);
+    if (status == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No attempt job with the id " + jobId + " was found");
+    }
+    return status;
+  }
+
+  /**
+   * Subscribe to a submitted attempt. A single "result" event carrying the
+   * job status is sent when the job finishes, then the stream closes.
+   */
+  @GetMapping(path = "/job/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJob(@RequestParam UUID jobId) {
+    CompletableFuture<MazeAttempt> result = jobService.getResult(jobId);
+    if (result == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No attempt job with the id " + jobId + " was found");
+    }
+
+    SseEmitter emitter = new SseEmitter(JOB_STREAM_TIMEOUT_MS);
+    result.whenComplete((attempt, error) -> {
+      try {
+        emitter.send(SseEmitter.event().name("result").data(jobService.getStatus(jobId)));
+        emitter.complete();
+      } catch (Exception e) {
+        emitter.completeWithError(e);
+      }
+    });
+    return emitter;
+  }
 }
@@ -1,8 +1,9 @@
 package com.learninglabyrinth.backend.controllers;
 
+import com.learninglabyrinth.backend.models.Account;
 import com.learninglabyrinth.backend.models.MazeLayout;
-import com.learninglabyrinth.backend.services.AccountService;
 import com.learninglabyrinth.backend.services.MazeService;
+import com.learninglabyrinth.backend.services.SessionStore;
 
 import jakarta.transaction.Transactional;
 
@@ -25,11 +26,13 @@ import java.util.UUID;
 public class MazeController {
 
     private final MazeService service;
+    private final SessionStore sessionStore;
     private final int MAX_MAZE_SIZE = 15;
     private final int MIN_MAZE_SIZE = 2;
 
-    public MazeController(MazeService service) {
+    public MazeController(MazeService service, SessionStore sessionStore) {
         this.service = service;
+        this.sessionStore = sessionStore;
     }
 
     /**
@@ -52,7 +55,9 @@ public class MazeController {
         int numStartPoints = numOccurrences(layout, '2');
         int numEndPoints  = numOccurrences(layout, '3');
 
-        if (!AccountService.hashMap.containsKey(creatorToken)) {
+        Account creator = sessionStore.get(creatorToken);
+
+        if (creator == null) {
             requestValid = false;
             message = "There is currently no logged-in user with the provided token (" + creatorToken.toString() + ")";
         } else if (size < MIN_MAZE_SIZE) {
@@ -80,7 +85,7 @@ public class MazeController {
         newLayout.size = size;
         newLayout.layout = layout;
         newLayout.uses = 0;
-        newLayout.creatorId = AccountService.hashMap.get(creatorToken).id;
+        newLayout.creatorId = creator.id;
 
         try {
             return service.saveMazeLayout(newLayout);
@@ -154,13 +159,15 @@ public class MazeController {
 
         Optional<MazeLayout> potentialMazeLayout = service.getMazeLayout(id);
 
-        if (!AccountService.hashMap.containsKey(creatorToken)) {
+        Account creator = sessionStore.get(creatorToken);
+
+        if (creator == null) {
             requestValid = false;
             message = "There is currently no logged-in user with the provided token (" + creatorToken.toString() + ")";
         } else if (potentialMazeLayout.isEmpty()) {
             requestValid = false;
             message = "No maze layout with the id " + id + " was found";
-        } else if (potentialMazeLayout.get().creatorId != AccountService.hashMap.get(creatorToken).id) {
+        } else if (potentialMazeLayout.get().creatorId != creator.id) {
             // requestValid = false;
             // message = "The currently logged-in user did not create the maze with the id " + id;
         } else if (size < MIN_MAZE_SIZE) {
@@ -190,7 +197,7 @@ public class MazeController {
         mazeToUpdate.size = size;
         mazeToUpdate.layout = layout;
 
-        return service.saveMazeLayout(mazeToUpdate);
+        return service.updateMazeLayout(mazeToUpdate);
     }
 
     /**
@@ -211,13 +218,15 @@ public class MazeController {
 
         Optional<MazeLayout> potentialMazeLayout = service.getMazeLayout(id);
 
-        if (!AccountService.hashMap.containsKey(creatorToken)) {
+        Account creator = sessionStore.get(creatorToken);
+
+        if (creator == null) {
             requestValid = false;
             message = "There is currently no logged-in user with the provided token (" + creatorToken.toString() + ")";
         } else if (potentialMazeLayout.isEmpty()) {
             requestValid = false;
             message = "No maze layout with the id " + id + " was found";
-        } else if (potentialMazeLayout.get().creatorId != AccountService.hashMap.get(creatorToken).id) {
+        } else if (potentialMazeLayout.get().creatorId != creator.id) {
             // requestValid = false;
             // message = "The currently logged-in user did not create the maze with the id " + id;
         }
@@ -0,0 +1,8 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.util.List;
+
+public class AccountImportResult {
+    public int created;
+    public List<String> skipped; // user names that were blank, repeated or already taken
+}
@@ -0,0 +1,13 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.util.UUID;
+
+import com.learninglabyrinth.backend.models.AttemptJobStateEnum;
+import com.learninglabyrinth.backend.models.MazeAttempt;
+
+public class AttemptJobStatus {
+    public UUID jobId;
+    public AttemptJobStateEnum status;
+    public MazeAttempt attempt; // set once the job is DONE
+    public String error;        // why the job FAILED
+}
@@ -0,0 +1,29 @@
+package com.learninglabyrinth.backend.dto;
+
+/**
+ * What the attempts on a maze, or of an account, cost the executor. Only
+ * attempts that ran in the executor are counted.
+ */
+public interface AttemptResourceUsage {
+    Long getId(); // the maze or account id, depending on the grouping
+
+    long getAttempts();
+
+    Double getAvgCompileMicros();
+
+    Double getAvgExecutionMicros();
+
+    Long getMaxExecutionMicros();
+
+    Double getAvgCpuMicros();
+
+    Long getMaxCpuMicros();
+
+    Double getAvgAllocatedBytes();
+
+    Long getMaxAllocatedBytes();
+
+    Double getAvgScans();
+
+    Double getAvgActions();
+}
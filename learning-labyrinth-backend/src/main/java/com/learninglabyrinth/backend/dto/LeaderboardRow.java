@@ -0,0 +1,11 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.time.LocalDateTime;
+
+public class LeaderboardRow {
+    public int rank; // 1 for the fewest moves
+    public long accountId;
+    public String username;
+    public int numMoves;
+    public LocalDateTime date;
+}
@@ -0,0 +1,29 @@
+package com.learninglabyrinth.backend.dto;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+
+/**
+ * What a single attempt cost the executor, selected without its code or
+ * movements.
+ */
+public interface MazeAttemptCost {
+    Long getId();
+
+    Long getMazeId();
+
+    Long getAccountId();
+
+    AttemptOutcomeEnum getOutcome();
+
+    Long getCompileMicros();
+
+    Long getExecutionMicros();
+
+    Long getCpuMicros();
+
+    Long getAllocatedBytes();
+
+    Integer getNumScans();
+
+    Integer getNumActions();
+}
@@ -0,0 +1,14 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional conditions on the attempts to list, null fields match anything.
+ */
+public class MazeAttemptFilter {
+    public Long mazeId;
+    public Long accountId;
+    public Boolean isSuccess;
+    public LocalDateTime from; // inclusive
+    public LocalDateTime to;   // exclusive
+}
@@ -0,0 +1,10 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.util.List;
+
+import com.learninglabyrinth.backend.models.MazeAttempt;
+
+public class MazeAttemptPage {
+    public List<MazeAttempt> attempts;
+    public Long nextCursor; // pass as "after" to get the next page, null on the last page
+}
@@ -0,0 +1,16 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.util.List;
+
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+/**
+ * What the frontend needs to replay an attempt: its code and movements.
+ */
+public interface MazeAttemptReplay {
+    Long getId();
+
+    String getJavaText();
+
+    List<MovementEnum> getMovements();
+}
@@ -0,0 +1,20 @@
+package com.learninglabyrinth.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+
+/**
+ * Score and date of an attempt, selected without its code or movements.
+ */
+public interface MazeAttemptSummary {
+    Long getId();
+
+    int getNumMoves();
+
+    boolean getIsSuccess();
+
+    AttemptOutcomeEnum getOutcome();
+
+    LocalDateTime getDate();
+}
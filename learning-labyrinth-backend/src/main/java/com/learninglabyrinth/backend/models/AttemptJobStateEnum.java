@@ -0,0 +1,8 @@
+package com.learninglabyrinth.backend.models;
+
+public enum AttemptJobStateEnum {
+	QUEUED,  // waiting for a thread to run it
+	RUNNING, // the attempt is being made
+	DONE,    // the attempt was made, the job status carries it
+	FAILED   // the attempt could not be made, the job status says why
+}
@@ -0,0 +1,11 @@
+package com.learninglabyrinth.backend.models;
+
+public enum AttemptOutcomeEnum {
+	SUCCESS,       // robot reached the finish
+	FAILURE,       // robot hit a wall or the code ended before the finish
+	COMPILE_ERROR, // code did not compile
+	STEP_LIMIT,    // robot performed more actions than allowed
+	OUTPUT_LIMIT,  // code printed more than allowed
+	TIMEOUT,       // code ran longer than allowed and was killed
+	ERROR          // code crashed the executor (e.g. stack overflow)
+}
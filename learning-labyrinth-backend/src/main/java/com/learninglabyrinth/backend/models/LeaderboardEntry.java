@@ -0,0 +1,32 @@
+package com.learninglabyrinth.backend.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * The best successful actual run of an account on a maze. Backs the in-memory
+ * leaderboards so they survive a restart without scanning the attempts.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_leaderboard_entry_maze_account",
+                                             columnNames = {"mazeId", "accountId"}))
+public class LeaderboardEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE)
+  public Long id;
+
+  public long mazeId;
+
+  public long accountId;
+
+  public int numMoves; // fewest moves the account has solved the maze in
+
+  public LocalDateTime date; // when that score was first reached
+}
@@ -0,0 +1,22 @@
+package com.learninglabyrinth.backend.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * A login token and the account it belongs to. Lets logged in users stay
+ * logged in across a restart of the backend.
+ */
+@Entity
+public class LoginSession {
+
+  @Id
+  public UUID token;
+
+  public long accountId;
+
+  public Instant createdAt; // sessions expire a fixed time after this
+}
@@ -1,15 +1,15 @@
 package com.learninglabyrinth.backend.models;
 
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,6 +23,15 @@ import com.learninglabyrinth.backend.robot.MovementEnum;
  * @author Mary Kim
  */
 @Entity
+@Table(indexes = {
+    // best attempt lookup: equality on maze, account and success, then score
+    @Index(name = "idx_maze_attempt_best", columnList = "mazeId, accountId, isSuccess, numMoves"),
+    // most recent attempt lookup: equality on maze and account, then date
+    @Index(name = "idx_maze_attempt_recent", columnList = "mazeId, accountId, date"),
+    // most expensive attempts of a maze or an account
+    @Index(name = "idx_maze_attempt_maze_cost", columnList = "mazeId, cpuMicros"),
+    @Index(name = "idx_maze_attempt_account_cost", columnList = "accountId, cpuMicros")
+})
 public class MazeAttempt {
 
   @Id
@@ -37,17 +46,28 @@ public class MazeAttempt {
 
   private boolean isSuccess; // true if maze is solved
 
+  @Enumerated(EnumType.STRING)
+  private AttemptOutcomeEnum outcome; // how the attempt ended
+
   @Column(columnDefinition = "LONGTEXT")
   private String javaText;
 
   private LocalDateTime date; // date of attempt made
 
-  @ElementCollection(targetClass = MovementEnum.class)
-  @CollectionTable(name = "movements", joinColumns = @JoinColumn(name = "maze_attempt_id"))
-  @Column(name = "movements", nullable = false, columnDefinition = "LONGTEXT")
-  @Enumerated(EnumType.STRING)
+  // run-length encoded in one column, see MovementListConverter
+  @Convert(converter = MovementListConverter.class)
+  @Column(name = "movement_runs", columnDefinition = "MEDIUMBLOB")
   private List<MovementEnum> movements; // movement history of the attempt
 
+  // what running the code cost the executor, null if the result was reused
+  // from an earlier run or the executor never answered
+  private Long compileMicros;   // compiling, or loading cached byte code
+  private Long executionMicros; // wall clock time of the maze algorithm
+  private Long cpuMicros;       // CPU time of the maze algorithm
+  private Long allocatedBytes;  // heap allocated by the maze algorithm
+  private Integer numScans;     // scans the robot made
+  private Integer numActions;   // moves, rotations and scans the robot made
+
   // constructors
   public MazeAttempt() {
   }
@@ -78,6 +98,10 @@ public class MazeAttempt {
     return isSuccess;
   }
 
+  public AttemptOutcomeEnum getOutcome() {
+    return outcome;
+  }
+
   public String getJavaText() {
     return javaText;
   }
@@ -86,14 +110,34 @@ public class MazeAttempt {
     return this.date;
   }
 
-  @ElementCollection(targetClass = MovementEnum.class)
-  @CollectionTable(name = "movements", joinColumns = @JoinColumn(name = "maze_attempt_id"))
-  @Column(name = "movements", nullable = false, columnDefinition = "LONGTEXT")
-  @Enumerated(EnumType.STRING)
   public List<MovementEnum> getMovements() {
     return movements;
   }
 
+  public Long getCompileMicros() {
+    return compileMicros;
+  }
+
+  public Long getExecutionMicros() {
+    return executionMicros;
+  }
+
+  public Long getCpuMicros() {
+    return cpuMicros;
+  }
+
+  public Long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public Integer getNumScans() {
+    return numScans;
+  }
+
+  public Integer getNumActions() {
+    return numActions;
+  }
+
   // setters
   public void setMovements(List<MovementEnum> movements) {
     this.movements = movements;
@@ -104,4 +148,17 @@ public class MazeAttempt {
   public void setIsSuccess(boolean success) {
     this.isSuccess = success;
   }
+  public void setOutcome(AttemptOutcomeEnum outcome) {
+    this.outcome = outcome;
+  }
+
+  public void setResourceUsage(long compileMicros, long executionMicros, long cpuMicros,
+                               long allocatedBytes, int numScans, int numActions) {
+    this.compileMicros = compileMicros;
+    this.executionMicros = executionMicros;
+    this.cpuMicros = cpuMicros;
+    this.allocatedBytes = allocatedBytes;
+    this.numScans = numScans;
+    this.numActions = numActions;
+  }
 }
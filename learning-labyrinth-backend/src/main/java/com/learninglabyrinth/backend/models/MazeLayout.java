@@ -20,7 +20,10 @@ public class MazeLayout {
     @JsonProperty("layout")
     public String layout;
 
+    // only changed through MazeRepository.addUses, so saving a maze never
+    // overwrites uses counted since it was read
     @JsonProperty("clickCount")
+    @Column(updatable = false)
     public int uses;
 
     @JsonProperty("creatorId")
@@ -0,0 +1,73 @@
+package com.learninglabyrinth.backend.models;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a movement history in a single column as run-length encoded bytes.
+ * Each byte holds a MovementEnum ordinal in its top 3 bits and the length of
+ * the run minus one in its low 5 bits, so up to 32 repeats of a move fit in
+ * one byte and longer runs continue in the next.
+ */
+@Converter
+public class MovementListConverter implements AttributeConverter<List<MovementEnum>, byte[]> {
+  private static final MovementEnum[] MOVEMENTS = MovementEnum.values();
+  private static final int RUN_BITS = 5;
+  private static final int MAX_RUN = 1 << RUN_BITS;
+  private static final int RUN_MASK = MAX_RUN - 1;
+
+  @Override
+  public byte[] convertToDatabaseColumn(List<MovementEnum> movements) {
+    return movements == null ? null : encode(movements);
+  }
+
+  @Override
+  public List<MovementEnum> convertToEntityAttribute(byte[] runs) {
+    return runs == null ? null : decode(runs);
+  }
+
+  /**
+   * @param movements: A movement history
+   * @return The history run-length encoded
+   */
+  public static byte[] encode(List<MovementEnum> movements) {
+    ByteArrayOutputStream runs = new ByteArrayOutputStream(movements.size() / 4 + 1);
+    int i = 0;
+    while (i < movements.size()) {
+      MovementEnum movement = movements.get(i);
+      int length = 1;
+      while (length < MAX_RUN && i + length < movements.size()
+          && movements.get(i + length) == movement) {
+        ++length;
+      }
+      runs.write(movement.ordinal() << RUN_BITS | (length - 1));
+      i += length;
+    }
+    return runs.toByteArray();
+  }
+
+  /**
+   * @param runs: A movement history written by encode()
+   * @return The movement history
+   */
+  public static List<MovementEnum> decode(byte[] runs) {
+    int size = 0;
+    for (byte run : runs) {
+      size += (run & RUN_MASK) + 1;
+    }
+    List<MovementEnum> movements = new ArrayList<>(size);
+    for (byte run : runs) {
+      MovementEnum movement = MOVEMENTS[(run & 0xFF) >>> RUN_BITS];
+      for (int length = (run & RUN_MASK) + 1; length > 0; --length) {
+        movements.add(movement);
+      }
+    }
+    return movements;
+  }
+}
@@ -3,6 +3,11 @@ package com.learninglabyrinth.backend.repositories;
 import org.springframework.stereotype.Repository;
 import com.learninglabyrinth.backend.models.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,4 +19,9 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
 	Optional<Account> findByUsername(String username);
 	Optional<Account> findByUsernameAndPassword(String username, String password);
+	// true if an account other than the given one has the user name
+	boolean existsByUsernameAndIdNot(String username, Long id);
+	// the given user names that are already taken
+	@Query("SELECT a.username FROM Account a WHERE a.username IN :usernames")
+	List<String> findTakenUsernames(@Param("usernames") Collection<String> usernames);
 }
@@ -0,0 +1,17 @@
+package com.learninglabyrinth.backend.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.learninglabyrinth.backend.models.LeaderboardEntry;
+
+@Repository
+public interface LeaderboardRepository extends JpaRepository<LeaderboardEntry, Long> {
+    // every account's best score on the maze
+    List<LeaderboardEntry> findAllByMazeId(long mazeId);
+
+    // deletes the leaderboard of the given maze id
+    long deleteAllByMazeId(long mazeId);
+}
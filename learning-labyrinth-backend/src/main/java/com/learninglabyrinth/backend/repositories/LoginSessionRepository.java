@@ -0,0 +1,17 @@
+package com.learninglabyrinth.backend.repositories;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learninglabyrinth.backend.models.LoginSession;
+
+@Repository
+public interface LoginSessionRepository extends JpaRepository<LoginSession, UUID> {
+    // deletes sessions created before the given time
+    @Transactional
+    long deleteAllByCreatedAtBefore(Instant cutoff);
+}
@@ -1,13 +1,32 @@
 package com.learninglabyrinth.backend.repositories;
 
 import org.springframework.stereotype.Repository;
+import com.learninglabyrinth.backend.dto.AttemptResourceUsage;
+import com.learninglabyrinth.backend.dto.MazeAttemptCost;
 import com.learninglabyrinth.backend.models.MazeAttempt;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MazeAttemptRepository extends JpaRepository<MazeAttempt, Long> {
+  // aggregates selected into AttemptResourceUsage
+  String RESOURCE_USAGE = "COUNT(a) AS attempts,"
+      + " AVG(a.compileMicros) AS avgCompileMicros,"
+      + " AVG(a.executionMicros) AS avgExecutionMicros,"
+      + " MAX(a.executionMicros) AS maxExecutionMicros,"
+      + " AVG(a.cpuMicros) AS avgCpuMicros,"
+      + " MAX(a.cpuMicros) AS maxCpuMicros,"
+      + " AVG(a.allocatedBytes) AS avgAllocatedBytes,"
+      + " MAX(a.allocatedBytes) AS maxAllocatedBytes,"
+      + " AVG(a.numScans) AS avgScans,"
+      + " AVG(a.numActions) AS avgActions";
+
   boolean existsByAccountIdAndMazeId(Long accountId, Long mazeId);
 
     // @Query("SELECT a from MazeAttempt a WHERE a.accountId = ?1 AND a.isSuccess = true ORDER BY a.numMoves ASC")
@@ -21,6 +40,76 @@ public interface MazeAttemptRepository extends JpaRepository<MazeAttempt, Long>
     // find the most recent attempt for this maze made by the given user
     Optional<MazeAttempt> findFirstByMazeIdAndAccountIdOrderByDateDesc(long mazeId, long accountId);
 
+    // the same lookups, selecting only the columns of the given projection
+    <T> Optional<T> findFirstByMazeIdAndAccountIdAndIsSuccessOrderByNumMovesAsc(long mazeId, long accountId, boolean isSuccess, Class<T> type);
+
+    <T> Optional<T> findFirstByMazeIdAndAccountIdOrderByDateDesc(long mazeId, long accountId, Class<T> type);
+
+    // find one of the given user's attempts, selecting only the projection's columns
+    <T> Optional<T> findByIdAndAccountId(long id, long accountId, Class<T> type);
+
+    // the attempts after the given id that match every non-null filter, in id
+    // order, so a page is a range scan of the primary key however deep it is
+    @Query("SELECT a FROM MazeAttempt a WHERE a.id > :after"
+        + " AND (:mazeId IS NULL OR a.mazeId = :mazeId)"
+        + " AND (:accountId IS NULL OR a.accountId = :accountId)"
+        + " AND (:isSuccess IS NULL OR a.isSuccess = :isSuccess)"
+        + " AND (:dateFrom IS NULL OR a.date >= :dateFrom)"
+        + " AND (:dateTo IS NULL OR a.date < :dateTo)"
+        + " ORDER BY a.id")
+    List<MazeAttempt> findPageAfter(@Param("after") long after,
+                                    @Param("mazeId") Long mazeId,
+                                    @Param("accountId") Long accountId,
+                                    @Param("isSuccess") Boolean isSuccess,
+                                    @Param("dateFrom") LocalDateTime dateFrom,
+                                    @Param("dateTo") LocalDateTime dateTo,
+                                    Pageable pageable);
+
+    // mazeId, accountId, fewest moves and the date of the first attempt that
+    // took that few moves, for every account that solved a maze, used once to
+    // fill the leaderboards
+    @Query("SELECT a.mazeId, a.accountId, a.numMoves, MIN(a.date) FROM MazeAttempt a"
+        + " WHERE a.isSuccess = true AND a.numMoves = (SELECT MIN(b.numMoves) FROM MazeAttempt b"
+        + " WHERE b.isSuccess = true AND b.mazeId = a.mazeId AND b.accountId = a.accountId)"
+        + " GROUP BY a.mazeId, a.accountId, a.numMoves")
+    List<Object[]> findBestSuccessPerMazeAndAccount();
+
+    // every account that has attempted the given maze id
+    @Query("SELECT DISTINCT a.accountId FROM MazeAttempt a WHERE a.mazeId = :mazeId")
+    List<Long> findAccountIdsByMazeId(@Param("mazeId") long mazeId);
+
+    // executor cost of the attempts on each maze, of one account if given,
+    // highest average CPU time first
+    @Query("SELECT a.mazeId AS id, " + RESOURCE_USAGE + " FROM MazeAttempt a"
+        + " WHERE a.cpuMicros IS NOT NULL"
+        + " AND (:accountId IS NULL OR a.accountId = :accountId)"
+        + " GROUP BY a.mazeId ORDER BY AVG(a.cpuMicros) DESC")
+    List<AttemptResourceUsage> findResourceUsageByMaze(@Param("accountId") Long accountId,
+                                                       Pageable pageable);
+
+    // executor cost of each account's attempts, on one maze if given,
+    // highest average CPU time first
+    @Query("SELECT a.accountId AS id, " + RESOURCE_USAGE + " FROM MazeAttempt a"
+        + " WHERE a.cpuMicros IS NOT NULL"
+        + " AND (:mazeId IS NULL OR a.mazeId = :mazeId)"
+        + " GROUP BY a.accountId ORDER BY AVG(a.cpuMicros) DESC")
+    List<AttemptResourceUsage> findResourceUsageByAccount(@Param("mazeId") Long mazeId,
+                                                          Pageable pageable);
+
+    // the attempts that cost the most CPU time, on one maze and of one
+    // account if given
+    @Query("SELECT a.id AS id, a.mazeId AS mazeId, a.accountId AS accountId, a.outcome AS outcome,"
+        + " a.compileMicros AS compileMicros, a.executionMicros AS executionMicros,"
+        + " a.cpuMicros AS cpuMicros, a.allocatedBytes AS allocatedBytes,"
+        + " a.numScans AS numScans, a.numActions AS numActions FROM MazeAttempt a"
+        + " WHERE a.cpuMicros IS NOT NULL"
+        + " AND (:mazeId IS NULL OR a.mazeId = :mazeId)"
+        + " AND (:accountId IS NULL OR a.accountId = :accountId)"
+        + " ORDER BY a.cpuMicros DESC")
+    List<MazeAttemptCost> findMostExpensive(@Param("mazeId") Long mazeId,
+                                            @Param("accountId") Long accountId,
+                                            Pageable pageable);
+
     // deletes all attempts linked to the given maze id
     long deleteAllByMazeId(long mazeId);
 }
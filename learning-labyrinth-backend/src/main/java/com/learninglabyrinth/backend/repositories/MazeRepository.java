@@ -6,7 +6,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface MazeRepository extends JpaRepository<MazeLayout, Long> {
@@ -14,4 +18,10 @@ public interface MazeRepository extends JpaRepository<MazeLayout, Long> {
     Iterable<MazeLayout> findAllByOrderBySizeAsc();
     Optional<MazeLayout> findById(Long id);
     List<MazeLayout> findTop3ByOrderByUsesDesc();
+
+    // adds to the uses of the given maze id in place, without reading it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE MazeLayout m SET m.uses = m.uses + :delta WHERE m.id = :id")
+    int addUses(@Param("id") long id, @Param("delta") int delta);
 }
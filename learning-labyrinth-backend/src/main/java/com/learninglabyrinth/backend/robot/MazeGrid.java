@@ -0,0 +1,126 @@
+package com.learninglabyrinth.backend.robot;
+
+/**
+ * Grid form of a maze layout. Cells are stored row by row in a flat byte array
+ * holding GridTypeEnum ordinals, surrounded by a border of walls so a robot
+ * can scan past the edge of the maze without bounds checks. Each attempt
+ * parses its own grid: user code can reach the array by reflection, so a grid
+ * kept between jobs in a warm worker could be altered by one attempt and seen
+ * by the next.
+ */
+public final class MazeGrid {
+  private static final GridTypeEnum[] GRID_TYPES = GridTypeEnum.values();
+
+  private final byte[] cells; // GridTypeEnum ordinals, walled border included
+  private final int size;     // cells per side, border excluded
+  private final int stride;   // cells per padded row
+  private final int start;    // index of the start cell
+  private final int finish;   // index of the finish cell
+  private final int[] offsets; // index change to the adjacent cell, by direction
+
+  private MazeGrid(String layout, int size) {
+    this.size = size;
+    this.stride = size + 2;
+    this.cells = new byte[stride * stride]; // zero is WALL, so the border is set
+    this.offsets = new int[] {-stride, stride, -1, 1}; // UP, DOWN, LEFT, RIGHT
+    int start = index(0, 0); // the top left cell if the layout has none
+    int finish = -1;
+    int currentChar = 0;
+    for (int y = 0; y < size; ++y) {
+      for (int x = 0; x < size; ++x) {
+        int cell = index(x, y);
+        switch (layout.charAt(currentChar)) {
+          case '0':
+            cells[cell] = (byte) GridTypeEnum.PATH.ordinal();
+            break;
+          case '2': // start position
+            start = cell;
+            cells[cell] = (byte) GridTypeEnum.PATH.ordinal();
+            break;
+          case '3':
+            finish = cell;
+            cells[cell] = (byte) GridTypeEnum.FINISH.ordinal();
+            break;
+          default: // '1'
+            break;
+        }
+        ++currentChar;
+      }
+    }
+    this.start = start;
+    this.finish = finish;
+  }
+
+  /**
+   * Parses a layout into a new grid.
+   *
+   * @param layout: String representation of the maze, one char per cell
+   * @param size:   The number of cells per side
+   * @return The grid
+   */
+  public static MazeGrid parse(String layout, int size) {
+    return new MazeGrid(layout, size);
+  }
+
+  /**
+   * @param x: Column of the cell, 0 being the left of the maze
+   * @param y: Row of the cell, 0 being the top of the maze
+   * @return Index of the cell, may be in the border
+   */
+  public int index(int x, int y) {
+    return (y + 1) * stride + x + 1;
+  }
+
+  /**
+   * @param cell: Index of a cell or of the border
+   * @return The cell's grid type, WALL for the border
+   */
+  public GridTypeEnum typeAt(int cell) {
+    return GRID_TYPES[cells[cell]];
+  }
+
+  /**
+   * @param direction: A direction relative to the maze
+   * @return What to add to a cell index to reach the adjacent cell
+   */
+  public int offset(DirectionEnum direction) {
+    return offsets[direction.ordinal()];
+  }
+
+  /**
+   * @param cell: Index of a cell
+   * @return Column of the cell
+   */
+  public int x(int cell) {
+    return cell % stride - 1;
+  }
+
+  /**
+   * @param cell: Index of a cell
+   * @return Row of the cell
+   */
+  public int y(int cell) {
+    return cell / stride - 1;
+  }
+
+  /**
+   * @return Index of the start cell
+   */
+  public int getStart() {
+    return start;
+  }
+
+  /**
+   * @return Index of the finish cell, or -1 if the layout has none
+   */
+  public int getFinish() {
+    return finish;
+  }
+
+  /**
+   * @return The number of cells per side, border excluded
+   */
+  public int getSize() {
+    return size;
+  }
+}
@@ -0,0 +1,93 @@
+package com.learninglabyrinth.backend.robot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Records the robot's movements as one byte per MovementEnum ordinal in a
+ * growable array, so recording a move never allocates once the array is
+ * large enough. A read-only List view is available for code that expects
+ * a list.
+ */
+public final class MovementRecorder {
+  private static final MovementEnum[] MOVEMENTS = MovementEnum.values();
+  private static final int INITIAL_CAPACITY = 64;
+
+  private byte[] moves;
+  private int size;
+  private final List<MovementEnum> view;
+
+  public MovementRecorder() {
+    this.moves = new byte[INITIAL_CAPACITY];
+    this.view = new View();
+  }
+
+  /**
+   * @param movement: The movement to append
+   */
+  public void add(MovementEnum movement) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, moves.length * 2);
+    }
+    moves[size++] = (byte) movement.ordinal();
+  }
+
+  /**
+   * @param index: Position of the movement, 0 being the first
+   * @return The movement at the index
+   */
+  public MovementEnum get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return MOVEMENTS[moves[index]];
+  }
+
+  /**
+   * @return The number of movements recorded
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return The last movement recorded, or null if there is none
+   */
+  public MovementEnum last() {
+    return size == 0 ? null : MOVEMENTS[moves[size - 1]];
+  }
+
+  /**
+   * Writes the recorded ordinals to the stream, one byte each.
+   *
+   * @param out: The stream to write to
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.write(moves, 0, size);
+  }
+
+  /**
+   * @return A read-only list backed by this recorder, later movements show up
+   *         in it as they are recorded
+   */
+  public List<MovementEnum> asList() {
+    return view;
+  }
+
+  private class View extends AbstractList<MovementEnum> implements RandomAccess {
+    @Override
+    public MovementEnum get(int index) {
+      return MovementRecorder.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
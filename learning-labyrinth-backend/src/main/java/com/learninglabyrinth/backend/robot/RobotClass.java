@@ -1,6 +1,5 @@
 package com.learninglabyrinth.backend.robot;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.learninglabyrinth.backend.models.MazeLayout;
@@ -13,17 +12,25 @@ import com.learninglabyrinth.backend.models.MazeLayout;
  * @author Alvin Osterndorff
  */
 public class RobotClass {
-  private List<MovementEnum> movements; // history of attempt's completed moves
-  private GridTypeEnum[][] maze;        // map of maze in grid types
+  // action budget used when none is given
+  public static final int DEFAULT_MAX_ACTIONS = 1000000;
+
+  private MovementRecorder movements;   // history of attempt's completed moves
+  private MazeGrid maze;                // map of maze in grid types
   private DirectionEnum currDirection;  // current direction robot is facing
   private Position currPosition;        // current position of the robot
-  private Position tgtPosition;         // target position for scanning
-  private MazeLayout mazeLayout;        // string representation of maze
+  private int currCell;                 // current cell of the robot in maze
+  private int tgtCell;                  // target cell for scanning
+  private RobotStatusEnum status;       // RUNNING until a wall or the finish
+  private final int maxActions;         // moves, rotations and scans allowed
+  private int numActions;               // moves, rotations and scans performed
+  private int numScans;                 // scans performed
   
   // Maps the directions relative to which way the robot is facing to those
   // relative to the robot's location in the maze. Allows for 2D matrix indexing
   // (x = i, y = j).
-  // The order of the robot's facing directions is UP, DOWN, LEFT, RIGHT.
+  // The order of the robot's facing directions is UP, DOWN, LEFT, RIGHT, the
+  // order of DirectionEnum, so a mapping is indexed by currDirection.ordinal().
   private DirectionEnum[][] adjacentMappings = {// mapping for left of robot
   /*   Facing UP: left = left of position   */  {DirectionEnum.LEFT,
   /* Facing DOWN: left = right of position  */   DirectionEnum.RIGHT,
@@ -53,108 +60,44 @@ public class RobotClass {
    *                    the maze.
    */
   public RobotClass(MazeLayout mazeLayout) {
-    this.mazeLayout = mazeLayout;
-    this.currPosition = new Position();
-    this.tgtPosition = new Position();
-    buildMazeArray();
-    this.movements = new ArrayList<>();
-    this.currDirection = DirectionEnum.RIGHT;
-  }
-
-  /**
-   * Constructs a 2D array of GridTypeEnum values from the mazeLayout layout
-   * string. The starting position is given the value of PATH as it can be
-   * traversed by the robot. The maze and currPosition fields are initialized in
-   * this method.
-   */
-  private void buildMazeArray() {
-    maze = new GridTypeEnum[mazeLayout.size][mazeLayout.size];
-    int currentChar = 0;
-    for (int y = 0; y < mazeLayout.size; ++y) {
-      for (int x = 0; x < mazeLayout.size; ++x) {
-        switch (mazeLayout.layout.charAt(currentChar)) {
-          case '0':
-            maze[x][y] = GridTypeEnum.PATH;
-            break;
-          case '1':
-            maze[x][y] = GridTypeEnum.WALL;
-            break;
-          case '2': // start position
-            currPosition.x = x;
-            currPosition.y = y;
-            maze[x][y] = GridTypeEnum.PATH;
-            break;
-          case '3':
-            maze[x][y] = GridTypeEnum.FINISH;
-            break;
-        }
-        ++currentChar;
-      }
-    }
+    this(mazeLayout, DEFAULT_MAX_ACTIONS);
   }
 
   /**
-   * Sets coordinates of scannedPosition to those of a grid adjacent to
-   * currPosition, in the specified direction relative to currPosition.
+   * Constructor for the Robot with a limit on the number of moves, rotations
+   * and scans it will perform.
    * 
-   * @param scannedGrid: The map of the maze in grid types
+   * @param mazeLayout: The maze object containing a string representation of
+   *                    the maze.
+   * @param maxActions: The number of actions allowed before the attempt is
+   *                    stopped.
    */
-  private void getScanGridCoords(DirectionEnum scannedGrid) {
-    // set scannedPosition's coordinates to that of currPosition's
-    tgtPosition.x = currPosition.x;
-    tgtPosition.y = currPosition.y;
-    // alter scannedPosition's coordinates to those of an adjacent one in the
-    // specified direction
-    switch (scannedGrid) {
-      case UP:
-        --tgtPosition.y;
-        break;
-      case DOWN:
-        ++tgtPosition.y;
-        break;
-      case LEFT:
-        --tgtPosition.x;
-        break;
-      case RIGHT:
-        ++tgtPosition.x;
-        break;
-    }
+  public RobotClass(MazeLayout mazeLayout, int maxActions) {
+    this.maxActions = maxActions;
+    this.maze = MazeGrid.parse(mazeLayout.layout, mazeLayout.size);
+    this.currCell = maze.getStart();
+    this.currPosition = new Position();
+    this.currPosition.x = maze.x(currCell);
+    this.currPosition.y = maze.y(currCell);
+    this.movements = new MovementRecorder();
+    this.currDirection = DirectionEnum.RIGHT;
+    this.status = RobotStatusEnum.RUNNING;
   }
 
   /**
-   * Retrieves the GridTypeEnum of the grid being scanned.
+   * Retrieves the GridTypeEnum of the grid being scanned and sets tgtCell to
+   * it. Cells past the edge of the maze are part of the grid's walled border,
+   * so no bounds check is needed.
    * 
    * @param directionMapping: The directions to scan in relative to the robot's
    *                          location.
    * @return The grid type of the scanned grid.
    */
   private GridTypeEnum getScanGridType(DirectionEnum[] directionMapping) {
-    GridTypeEnum gridType;
-    // Retrieve the coordinates to scan with the direction translated to the
-    // that relative to the robot's location in the maze
-    switch (currDirection) {
-      case UP:
-        getScanGridCoords(directionMapping[0]);
-        break;
-      case DOWN:
-        getScanGridCoords(directionMapping[1]);
-        break;
-      case LEFT:
-        getScanGridCoords(directionMapping[2]);
-        break;
-      case RIGHT:
-        getScanGridCoords(directionMapping[3]);
-        break;
-    }
-    // ensure x and y values are within index bounds of maze
-    if (tgtPosition.x < 0 || tgtPosition.x >= mazeLayout.size ||
-        tgtPosition.y < 0 || tgtPosition.y >= mazeLayout.size) {
-      gridType = GridTypeEnum.WALL;
-    }
-    else {
-      gridType = maze[tgtPosition.x][tgtPosition.y];
-    }
-    return gridType;
+    // translate the direction to that relative to the robot's location in the
+    // maze and step to the adjacent cell in that direction
+    tgtCell = currCell + maze.offset(directionMapping[currDirection.ordinal()]);
+    return maze.typeAt(tgtCell);
   }
 
   /**
@@ -164,6 +107,8 @@ public class RobotClass {
    * @return The grid type of grid that was scanned
    */
   public GridTypeEnum scanLeft() {
+    countAction();
+    ++numScans;
     return getScanGridType(adjacentMappings[0]); // mapping for left of robot
   }
 
@@ -174,6 +119,8 @@ public class RobotClass {
    * @return The grid type of grid that was scanned
    */
   public GridTypeEnum scanRight() {
+    countAction();
+    ++numScans;
     return getScanGridType(adjacentMappings[1]); // mapping for right of robot
   }
 
@@ -184,6 +131,8 @@ public class RobotClass {
    * @return The grid type of grid that was scanned
    */
   public GridTypeEnum scanForward() {
+    countAction();
+    ++numScans;
     return getScanGridType(adjacentMappings[2]); // mapping for front of robot
   }
 
@@ -193,6 +142,8 @@ public class RobotClass {
    * @return The grid type of grid that was scanned
    */
   public GridTypeEnum scanBackward() {
+    countAction();
+    ++numScans;
     return getScanGridType(adjacentMappings[3]); // mapping for behind robot
   }
   
@@ -200,44 +151,49 @@ public class RobotClass {
    * Set's the robot's current position to the grid ahead of it or behind it
    * depending on the direction specified.
    * 
-   * @throws Exception: Thrown if the position the robot is attempting to move
-   *                    to is a wall, or if the robot has reached the finish.
+   * @throws RobotTerminatedSignal: Thrown if the position the robot is
+   *                                attempting to move to is a wall, or if the
+   *                                robot has reached the finish.
    */
-  private void moveLongitudinally(MovementEnum move) throws Exception {
+  private void moveLongitudinally(MovementEnum move) {
     // assign destination grid type and movement direction based on argument
     GridTypeEnum destinationType;
     MovementEnum moveToPerform;
+    countAction();
     if (move == MovementEnum.FORWARD) {
-      destinationType = scanForward();
+      destinationType = getScanGridType(adjacentMappings[2]);
       moveToPerform = MovementEnum.FORWARD;
     }
     else {
-      destinationType = scanBackward();
+      destinationType = getScanGridType(adjacentMappings[3]);
       moveToPerform = MovementEnum.BACKWARD;
     }
     // check for move to wall, move if not wall, check for finish
     if (destinationType == GridTypeEnum.WALL) {
       movements.add(MovementEnum.FAILURE);
-      throw new Exception();
+      status = RobotStatusEnum.FAILURE;
+      throw RobotTerminatedSignal.INSTANCE;
     }
     movements.add(moveToPerform);
     if (destinationType == GridTypeEnum.FINISH) {
       movements.add(MovementEnum.SUCCESS);
-      throw new Exception();
+      status = RobotStatusEnum.SUCCESS;
+      throw RobotTerminatedSignal.INSTANCE;
     }
     // update robot position
-    currPosition.x = tgtPosition.x;
-    currPosition.y = tgtPosition.y;
+    currCell = tgtCell;
+    currPosition.x = maze.x(currCell);
+    currPosition.y = maze.y(currCell);
   }
 
   /**
    * Set's the current position of the robot to the grid in front of it,
    * provided that said position is not a wall.
    * 
-   * @throws Exception: See implementation comment for moveLongitudinally()
-   *                    above.
+   * @throws RobotTerminatedSignal: See implementation comment for
+   *                                moveLongitudinally() above.
    */
-  public void moveForward() throws Exception {
+  public void moveForward() {
     moveLongitudinally(MovementEnum.FORWARD);
   }
 
@@ -245,10 +201,10 @@ public class RobotClass {
    * Set's the current position of the robot to the grid behind it, provided
    * that said position is not a wall.
    * 
-   * @throws Exception: See implementation comment for moveLongitudinally()
-   *                    above.
+   * @throws RobotTerminatedSignal: See implementation comment for
+   *                                moveLongitudinally() above.
    */
-  public void moveBackward() throws Exception {
+  public void moveBackward() {
     moveLongitudinally(MovementEnum.BACKWARD);
   }
 
@@ -262,20 +218,7 @@ public class RobotClass {
   private void rotate(DirectionEnum[] directionMapping) {
     // translate the direction from that relative to the robot's direction to
     // that relative to its location
-    switch (currDirection) {
-      case UP:
-        currDirection = directionMapping[0];
-        break;
-      case DOWN:
-        currDirection = directionMapping[1];
-        break;
-      case LEFT:
-        currDirection = directionMapping[2];
-        break;
-      case RIGHT:
-        currDirection = directionMapping[3];
-        break;
-    }
+    currDirection = directionMapping[currDirection.ordinal()];
   }
 
   /**
@@ -283,6 +226,7 @@ public class RobotClass {
    * previously.
    */
   public void rotateLeft() {
+    countAction();
     rotate(adjacentMappings[0]); // pass mapping for left of robot
     movements.add(MovementEnum.ROTATE_LEFT);
   }
@@ -292,10 +236,55 @@ public class RobotClass {
    * previously.
    */
   public void rotateRight() {
+    countAction();
     rotate(adjacentMappings[1]); // pass mapping for right of robot
     movements.add(MovementEnum.ROTATE_RIGHT);
   }
 
+  /**
+   * Counts a move, rotation or scan against the robot's action budget. A robot
+   * that has stopped performs no further actions.
+   * 
+   * @throws RobotTerminatedSignal:  Thrown if the robot has already stopped
+   * @throws StepLimitExceededError: Thrown if the budget is used up
+   */
+  private void countAction() {
+    if (status != RobotStatusEnum.RUNNING) {
+      throw RobotTerminatedSignal.INSTANCE;
+    }
+    if (++numActions > maxActions) {
+      throw new StepLimitExceededError(maxActions);
+    }
+  }
+
+  /**
+   * Getter method for the number of moves, rotations and scans performed.
+   * 
+   * @return numActions: The number of actions performed in this attempt
+   */
+  public int getNumActions() {
+    return numActions;
+  }
+
+  /**
+   * Getter method for the number of scans performed.
+   * 
+   * @return numScans: The number of scans performed in this attempt
+   */
+  public int getNumScans() {
+    return numScans;
+  }
+
+  /**
+   * Getter method for status.
+   * 
+   * @return status: RUNNING, or how the attempt ended once the robot hit a
+   *                 wall or reached the finish
+   */
+  public RobotStatusEnum getStatus() {
+    return status;
+  }
+
   /**
    * Getter method for currPosition.
    * 
@@ -317,9 +306,19 @@ public class RobotClass {
   /**
    * Getter method for the list of movements made by the robot.
    * 
-   * @return movements: The list of movements made by the robot in this attempt
+   * @return movements: A read-only view of the movements made by the robot in
+   *                    this attempt
    */
   public List<MovementEnum> getMovements() {
+    return movements.asList();
+  }
+
+  /**
+   * Getter method for the recorder of the robot's movements.
+   * 
+   * @return movements: The movements made by the robot in this attempt
+   */
+  public MovementRecorder getMovementRecorder() {
     return movements;
   }
 }
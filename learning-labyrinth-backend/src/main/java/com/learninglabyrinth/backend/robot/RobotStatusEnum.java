@@ -0,0 +1,7 @@
+package com.learninglabyrinth.backend.robot;
+
+public enum RobotStatusEnum {
+	RUNNING,
+	SUCCESS,
+	FAILURE
+}
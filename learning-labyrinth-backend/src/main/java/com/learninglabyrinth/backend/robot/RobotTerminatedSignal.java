@@ -0,0 +1,16 @@
+package com.learninglabyrinth.backend.robot;
+
+/**
+ * Thrown when the robot hits a wall or reaches the finish, ending the
+ * attempt. It is an Error rather than an Exception so that a catch
+ * (Exception e) block in the user's code cannot swallow it and keep looping,
+ * and a single instance without a stack trace is reused because it only ever
+ * unwinds to the executor.
+ */
+public final class RobotTerminatedSignal extends Error {
+  static final RobotTerminatedSignal INSTANCE = new RobotTerminatedSignal();
+
+  private RobotTerminatedSignal() {
+    super("Robot has stopped", null, false, false);
+  }
+}
@@ -77,8 +77,9 @@ public class RobotTests {
   
   @Test
   void passIfThrowsOnMoveToWall() {
-    assertThrows(Exception.class, () -> {robot.moveForward();});
-    assertThrows(Exception.class, () -> {robot.moveBackward();});
+    assertThrows(RobotTerminatedSignal.class, () -> {robot.moveForward();});
+    assertEquals(RobotStatusEnum.FAILURE, robot.getStatus());
+    assertThrows(RobotTerminatedSignal.class, () -> {robot.moveBackward();});
   }
   
   @Test
@@ -143,7 +144,8 @@ public class RobotTests {
     } catch (Exception e) {
       e.printStackTrace();
     }
-    assertThrows(Exception.class, () -> {robot.moveForward();});
+    assertThrows(RobotTerminatedSignal.class, () -> {robot.moveForward();});
+    assertEquals(RobotStatusEnum.SUCCESS, robot.getStatus());
   }
   
   @Test
@@ -0,0 +1,13 @@
+package com.learninglabyrinth.backend.robot;
+
+/**
+ * Thrown when the robot is asked to perform more actions than its budget
+ * allows. This is an Error rather than an Exception so that a catch
+ * (Exception e) block in the user's code cannot swallow it and keep looping.
+ */
+public class StepLimitExceededError extends Error {
+
+  public StepLimitExceededError(int maxActions) {
+    super("Robot exceeded its limit of " + maxActions + " actions");
+  }
+}
@@ -0,0 +1,69 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.cache.ContentHash;
+import com.learninglabyrinth.backend.cache.WeightedLruCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compiled user code, keyed by a SHA-256 hash of the wrapped source so that
+ * resubmitting identical code skips javac entirely. Bounded by the total size
+ * of the cached byte code.
+ */
+@Component
+public class BytecodeCache {
+  private final WeightedLruCache<String, Map<String, byte[]>> cache;
+
+  /**
+   * Constructor. Registers the cache's metrics with the actuator.
+   *
+   * @param registry: The actuator's meter registry
+   * @param maxBytes: The total byte code size the cache may hold
+   */
+  public BytecodeCache(MeterRegistry registry,
+      @Value("${labyrinth.executor.bytecode-cache.max-bytes:16777216}") long maxBytes) {
+    this.cache = new WeightedLruCache<>(maxBytes, BytecodeCache::byteCount);
+    FunctionCounter.builder("labyrinth.bytecode.cache.gets", cache, WeightedLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.bytecode.cache.gets", cache, WeightedLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.bytecode.cache.evictions", cache, WeightedLruCache::evictionCount)
+        .register(registry);
+    Gauge.builder("labyrinth.bytecode.cache.size", cache, WeightedLruCache::weight)
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  /**
+   * @param sourceCode: The user's code wrapped in the UserCode class
+   * @return The compiled classes for the source, or null if not cached
+   */
+  public Map<String, byte[]> get(String sourceCode) {
+    return cache.get(ContentHash.sha256(sourceCode));
+  }
+
+  /**
+   * @param sourceCode:      The user's code wrapped in the UserCode class
+   * @param compiledClasses: The classes compiled from the source
+   */
+  public void put(String sourceCode, Map<String, byte[]> compiledClasses) {
+    cache.put(ContentHash.sha256(sourceCode), Map.copyOf(compiledClasses));
+  }
+
+  private static long byteCount(Map<String, byte[]> compiledClasses) {
+    long count = 0;
+    for (byte[] byteCode : compiledClasses.values()) {
+      count += byteCode.length;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,21 @@
+package com.learninglabyrinth.backend.runner;
+
+/**
+ * A single error reported by the compiler for the user's code.
+ */
+public class CompilationDiagnostic {
+  public final long line;
+  public final long column;
+  public final String message;
+
+  public CompilationDiagnostic(long line, long column, String message) {
+    this.line = line;
+    this.column = column;
+    this.message = message;
+  }
+
+  @Override
+  public String toString() {
+    return "line " + line + ", column " + column + ": " + message;
+  }
+}
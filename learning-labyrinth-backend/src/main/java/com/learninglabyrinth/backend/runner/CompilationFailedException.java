@@ -0,0 +1,22 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.util.List;
+
+/**
+ * Thrown when the user's code does not compile.
+ */
+public class CompilationFailedException extends RuntimeException {
+  private final List<CompilationDiagnostic> diagnostics;
+
+  public CompilationFailedException(List<CompilationDiagnostic> diagnostics) {
+    super("Compilation failed: " + diagnostics);
+    this.diagnostics = diagnostics;
+  }
+
+  /**
+   * @return The errors reported by the compiler
+   */
+  public List<CompilationDiagnostic> getDiagnostics() {
+    return diagnostics;
+  }
+}
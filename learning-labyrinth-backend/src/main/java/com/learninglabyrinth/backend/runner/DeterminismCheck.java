@@ -0,0 +1,311 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides from compiled user code whether running it again is sure to give
+ * the same result. Every class, field and method the byte code refers to is
+ * read from the constant pools of its classes and checked against an
+ * allowlist of the robot, the maze and the parts of java.lang and java.util
+ * that cannot observe randomness, the clock, threads or identity hash codes.
+ * Anything not on the list, or any class file that cannot be read, makes the
+ * code non-deterministic, so the check errs towards running the code again.
+ */
+public final class DeterminismCheck {
+  // packages whose classes may all be used
+  private static final String[] ALLOWED_PACKAGES = {
+      "com/learninglabyrinth/backend/robot/",
+      "java/util/function/"
+  };
+
+  // classes that may be used, apart from the user's own and the packages
+  private static final Set<String> ALLOWED_CLASSES = Set.of(
+      "com/learninglabyrinth/backend/models/MazeLayout",
+      "java/lang/Object", "java/lang/String", "java/lang/StringBuilder",
+      "java/lang/CharSequence", "java/lang/Comparable", "java/lang/Iterable",
+      "java/lang/Math", "java/lang/StrictMath", "java/lang/Number",
+      "java/lang/Integer", "java/lang/Long", "java/lang/Short", "java/lang/Byte",
+      "java/lang/Character", "java/lang/Boolean", "java/lang/Double", "java/lang/Float",
+      "java/lang/Enum", "java/lang/System", "java/io/PrintStream",
+      "java/lang/Exception", "java/lang/RuntimeException",
+      "java/lang/ArithmeticException", "java/lang/IllegalArgumentException",
+      "java/lang/IllegalStateException", "java/lang/IndexOutOfBoundsException",
+      "java/lang/ArrayIndexOutOfBoundsException", "java/lang/NullPointerException",
+      "java/lang/UnsupportedOperationException", "java/lang/NumberFormatException",
+      "java/util/Collection", "java/util/List", "java/util/ArrayList",
+      "java/util/LinkedList", "java/util/Queue", "java/util/Deque", "java/util/ArrayDeque",
+      "java/util/Stack", "java/util/PriorityQueue", "java/util/Iterator",
+      "java/util/ListIterator", "java/util/Map", "java/util/Map$Entry", "java/util/Set",
+      "java/util/LinkedHashMap", "java/util/LinkedHashSet", "java/util/TreeMap",
+      "java/util/TreeSet", "java/util/SortedMap", "java/util/SortedSet",
+      "java/util/NavigableMap", "java/util/NavigableSet", "java/util/EnumMap",
+      "java/util/EnumSet", "java/util/Arrays", "java/util/Collections",
+      "java/util/Comparator", "java/util/Objects", "java/util/Optional",
+      "java/util/NoSuchElementException",
+      // what javac emits for lambdas and string concatenation
+      "java/lang/invoke/LambdaMetafactory", "java/lang/invoke/StringConcatFactory",
+      "java/lang/invoke/MethodHandles", "java/lang/invoke/MethodHandles$Lookup",
+      "java/lang/invoke/MethodHandle", "java/lang/invoke/MethodType",
+      "java/lang/invoke/CallSite"
+  );
+
+  // whose hashCode() and toString() do not depend on identity
+  private static final Set<String> VALUE_TYPES = Set.of(
+      "java/lang/String", "java/lang/StringBuilder", "java/lang/Integer",
+      "java/lang/Long", "java/lang/Short", "java/lang/Byte", "java/lang/Character",
+      "java/lang/Boolean", "java/lang/Double", "java/lang/Float"
+  );
+
+  // members that may show an identity hash code, whatever their owner
+  private static final Set<String> IDENTITY_MEMBERS = Set.of(
+      "hashCode", "toString", "hash", "deepHashCode", "deepToString"
+  );
+
+  // classes whose members of these names turn an Object into text
+  private static final Set<String> TEXT_TYPES = Set.of(
+      "java/lang/String", "java/lang/StringBuilder", "java/io/PrintStream"
+  );
+  private static final Set<String> TEXT_MEMBERS = Set.of(
+      "valueOf", "format", "formatted", "append", "insert", "print", "println", "printf"
+  );
+
+  // the only members of System that may be used
+  private static final Set<String> SYSTEM_MEMBERS = Set.of(
+      "out", "err", "arraycopy", "lineSeparator"
+  );
+
+  // the only members of java.lang.invoke, the bootstraps javac emits
+  private static final Set<String> BOOTSTRAP_MEMBERS = Set.of(
+      "metafactory", "altMetafactory", "makeConcat", "makeConcatWithConstants"
+  );
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+
+  private DeterminismCheck() {
+  }
+
+  /**
+   * @param compiledClasses: The byte code of each class compiled from the
+   *                         user's code, keyed by binary name
+   * @return True if the code only uses allowed classes and members, false if
+   *         it may behave differently next time or there are no classes
+   */
+  public static boolean isDeterministic(Map<String, byte[]> compiledClasses) {
+    if (compiledClasses == null || compiledClasses.isEmpty()) {
+      return false;
+    }
+    try {
+      for (byte[] byteCode : compiledClasses.values()) {
+        if (!isDeterministic(byteCode)) {
+          return false;
+        }
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      // not a class file javac would write
+      return false;
+    }
+  }
+
+  private static boolean isDeterministic(byte[] byteCode) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(byteCode));
+    if (in.readInt() != 0xCAFEBABE) {
+      return false;
+    }
+    in.readUnsignedShort(); // minor version
+    in.readUnsignedShort(); // major version
+    int count = in.readUnsignedShort();
+    int[] tags = new int[count];
+    String[] utf8 = new String[count];
+    int[] first = new int[count];
+    int[] second = new int[count];
+    for (int i = 1; i < count; ++i) {
+      tags[i] = in.readUnsignedByte();
+      switch (tags[i]) {
+        case CONSTANT_UTF8:
+          utf8[i] = in.readUTF();
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+          in.readInt();
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          in.readLong();
+          // takes up two entries
+          ++i;
+          break;
+        case CONSTANT_CLASS:
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+          first[i] = in.readUnsignedShort();
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          first[i] = in.readUnsignedByte();
+          second[i] = in.readUnsignedShort();
+          break;
+        case CONSTANT_FIELDREF:
+        case CONSTANT_METHODREF:
+        case CONSTANT_INTERFACE_METHODREF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          first[i] = in.readUnsignedShort();
+          second[i] = in.readUnsignedShort();
+          break;
+        default:
+          // modules and packages never appear in user code
+          return false;
+      }
+    }
+    for (int i = 1; i < count; ++i) {
+      switch (tags[i]) {
+        case CONSTANT_CLASS:
+          if (!isAllowedType(utf8[first[i]])) {
+            return false;
+          }
+          break;
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_METHOD_TYPE:
+          String descriptor = utf8[tags[i] == CONSTANT_METHOD_TYPE ? first[i] : second[i]];
+          if (!allTypesAllowed(descriptor)) {
+            return false;
+          }
+          break;
+        case CONSTANT_FIELDREF:
+        case CONSTANT_METHODREF:
+        case CONSTANT_INTERFACE_METHODREF:
+          String owner = utf8[first[first[i]]];
+          String name = utf8[first[second[i]]];
+          if (!isAllowedMember(owner, name, utf8[second[second[i]]])) {
+            return false;
+          }
+          break;
+        case CONSTANT_DYNAMIC:
+          // constant dynamics are not emitted for the allowed bootstraps
+          return false;
+        case CONSTANT_INVOKE_DYNAMIC:
+          String callSite = utf8[second[second[i]]];
+          if (utf8[first[second[i]]].startsWith("makeConcat") && !isTextSafe(callSite)) {
+            return false;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param owner:      The class declaring the member, as an internal name
+   * @param name:       The member's name
+   * @param descriptor: The member's descriptor
+   * @return True if using the member cannot make two runs differ
+   */
+  private static boolean isAllowedMember(String owner, String name, String descriptor) {
+    if (IDENTITY_MEMBERS.contains(name) && !VALUE_TYPES.contains(owner)) {
+      return false;
+    }
+    if (TEXT_TYPES.contains(owner) && TEXT_MEMBERS.contains(name)
+        && descriptor.contains("java/lang/Object;")) {
+      // String.valueOf(Object), StringBuilder.append(Object), println(Object)
+      // and format() all call toString()
+      return false;
+    }
+    if (owner.startsWith("java/lang/invoke/")) {
+      return BOOTSTRAP_MEMBERS.contains(name);
+    }
+    switch (owner) {
+      case "java/lang/System":
+        return SYSTEM_MEMBERS.contains(name);
+      case "java/lang/Math":
+      case "java/lang/StrictMath":
+        return !name.equals("random");
+      case "java/util/Collections":
+        return !name.equals("shuffle");
+      case "java/util/Set":
+      case "java/util/Map":
+        // the iteration order of immutable sets and maps is salted per JVM
+        return !name.equals("of") && !name.equals("copyOf") && !name.equals("ofEntries");
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * @param descriptor: The type of a string concatenation call site
+   * @return True if every value concatenated is a primitive or a value type
+   */
+  private static boolean isTextSafe(String descriptor) {
+    int end = descriptor.indexOf(')');
+    for (int i = 1; i < end; ++i) {
+      char c = descriptor.charAt(i);
+      if (c == '[') {
+        return false;
+      }
+      if (c == 'L') {
+        int semicolon = descriptor.indexOf(';', i);
+        if (!VALUE_TYPES.contains(descriptor.substring(i + 1, semicolon))) {
+          return false;
+        }
+        i = semicolon;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param descriptor: A field or method descriptor
+   * @return True if every class it names is allowed
+   */
+  private static boolean allTypesAllowed(String descriptor) {
+    int start = descriptor.indexOf('L');
+    while (start >= 0) {
+      int semicolon = descriptor.indexOf(';', start);
+      if (!isAllowedType(descriptor.substring(start + 1, semicolon))) {
+        return false;
+      }
+      start = descriptor.indexOf('L', semicolon);
+    }
+    return true;
+  }
+
+  /**
+   * @param name: An internal class name, or an array descriptor
+   * @return True if the class is the user's own or allowed
+   */
+  private static boolean isAllowedType(String name) {
+    if (name.startsWith("[")) {
+      return allTypesAllowed(name);
+    }
+    if (name.equals("UserCode") || name.startsWith("UserCode$")
+        || ALLOWED_CLASSES.contains(name)) {
+      return true;
+    }
+    for (String allowedPackage : ALLOWED_PACKAGES) {
+      if (name.startsWith(allowedPackage)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,63 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Copies what an executor process writes to its standard error into the
+ * backend's log, up to a limit per process. Once the limit is reached the
+ * rest is read and discarded, so the process never blocks on a full pipe
+ * and cannot flood the backend's log.
+ */
+public class ErrorStreamPump implements Runnable {
+  // bytes of standard error kept from a single executor process
+  public static final int MAX_LOG_BYTES = 1024 * 1024;
+
+  private final InputStream errors;
+  private final String name;
+
+  private ErrorStreamPump(InputStream errors, String name) {
+    this.errors = errors;
+    this.name = name;
+  }
+
+  /**
+   * Starts pumping the standard error of the given process on a daemon
+   * thread, which ends when the process closes the stream.
+   *
+   * @param process: The executor process
+   * @param name:    Names the process in the log and the pump's thread
+   */
+  public static void start(Process process, String name) {
+    Thread thread = new Thread(new ErrorStreamPump(process.getErrorStream(), name),
+        name + "-stderr");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void run() {
+    byte[] buffer = new byte[8192];
+    long logged = 0;
+    boolean truncated = false;
+    try (InputStream in = errors) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        int kept = (int) Math.min(read, MAX_LOG_BYTES - logged);
+        if (kept > 0) {
+          System.err.write(buffer, 0, kept);
+          System.err.flush();
+          logged += kept;
+        }
+        if (kept < read && !truncated) {
+          truncated = true;
+          System.err.println();
+          System.err.println(name + " wrote more than " + MAX_LOG_BYTES
+              + " bytes to standard error, discarding the rest");
+        }
+      }
+    } catch (IOException e) {
+      // the process was killed, nothing more to log
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles Java source held in a String straight to byte code held in memory.
+ * Nothing is written to or read from disk, and one StandardJavaFileManager
+ * (with its open class path jars) is reused for every compilation in this
+ * process.
+ */
+public class InMemoryJavaCompiler {
+  private static InMemoryJavaCompiler shared;
+
+  private final JavaCompiler compiler;
+  private final StandardJavaFileManager standardFileManager;
+
+  /**
+   * Constructor. Opens the file manager that later compilations reuse.
+   */
+  public InMemoryJavaCompiler() {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("Java Compiler not available.");
+    }
+    standardFileManager = compiler.getStandardFileManager(null, null, null);
+  }
+
+  /**
+   * @return The compiler shared by every UserClassLoader in this process
+   */
+  public static synchronized InMemoryJavaCompiler shared() {
+    if (shared == null) {
+      shared = new InMemoryJavaCompiler();
+    }
+    return shared;
+  }
+
+  /**
+   * Compiles a single source file. Compilations are serialized because the
+   * shared file manager is not thread safe, but each one collects its own
+   * output so concurrent callers never see each other's classes.
+   *
+   * @param name: The name of the top level class (e.g., "UserCode")
+   * @param code: The Java source code of the class
+   * @return The byte code of every class produced, keyed by binary name
+   * @throws CompilationFailedException: Thrown if the code does not compile
+   */
+  public synchronized Map<String, byte[]> compile(String name, String code) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    MemoryFileManager fileManager = new MemoryFileManager(standardFileManager);
+    JavaCompiler.CompilationTask task = compiler.getTask(
+        null,
+        fileManager,
+        diagnostics,
+        List.of("-proc:none"),
+        null,
+        List.of(new SourceFile(name, code)));
+    if (!task.call()) {
+      throw new CompilationFailedException(toCompilationDiagnostics(diagnostics));
+    }
+    return fileManager.getClassBytes();
+  }
+
+  /**
+   * Converts the compiler's error diagnostics into plain data.
+   *
+   * @param diagnostics: The diagnostics reported during a compilation
+   * @return The errors in the order they were reported
+   */
+  private static List<CompilationDiagnostic> toCompilationDiagnostics(
+      DiagnosticCollector<JavaFileObject> diagnostics) {
+    List<CompilationDiagnostic> errors = new ArrayList<>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(new CompilationDiagnostic(
+            diagnostic.getLineNumber(),
+            diagnostic.getColumnNumber(),
+            diagnostic.getMessage(null)));
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * Source file whose content is a String.
+   */
+  private static class SourceFile extends SimpleJavaFileObject {
+    private final String code;
+
+    SourceFile(String name, String code) {
+      super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension),
+            Kind.SOURCE);
+      this.code = code;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return code;
+    }
+  }
+
+  /**
+   * Class file whose content is written to a byte array.
+   */
+  private static class ClassFile extends SimpleJavaFileObject {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    ClassFile(String name) {
+      super(URI.create("bytes:///" + name.replace('.', '/') + Kind.CLASS.extension),
+            Kind.CLASS);
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      return bytes;
+    }
+  }
+
+  /**
+   * Sends class output to memory and everything else (e.g. class path
+   * lookups) to the shared standard file manager.
+   */
+  private static class MemoryFileManager
+      extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final Map<String, ClassFile> classFiles = new HashMap<>();
+
+    MemoryFileManager(StandardJavaFileManager fileManager) {
+      super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location,
+                                               String className,
+                                               JavaFileObject.Kind kind,
+                                               FileObject sibling) {
+      ClassFile classFile = new ClassFile(className);
+      classFiles.put(className, classFile);
+      return classFile;
+    }
+
+    Map<String, byte[]> getClassBytes() {
+      Map<String, byte[]> classBytes = new HashMap<>();
+      classFiles.forEach((name, file) -> classBytes.put(name, file.bytes.toByteArray()));
+      return classBytes;
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.learninglabyrinth.backend.runner;
+
+/**
+ * What a job cost inside the executor, measured by the executor and sent
+ * back after the job's result.
+ */
+public class JobStats {
+  public long compileNanos;  // compiling, or defining cached byte code
+  public long runNanos;      // running the user's maze algorithm
+  public long cpuNanos;      // CPU time of the thread running the algorithm
+  public long allocatedBytes; // heap allocated by the thread running the algorithm
+  public int numScans;       // scans the robot made
+  public int numActions;     // moves, rotations and scans the robot made
+}
@@ -0,0 +1,39 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.OutputStream;
+
+/**
+ * Discards what the user's code prints while counting it, and stops the code
+ * once it has printed more than the limit for a single job.
+ */
+public class LimitedOutputStream extends OutputStream {
+  private int maxBytes;
+  private int bytesWritten;
+
+  /**
+   * Starts counting for a new job.
+   *
+   * @param maxBytes: The number of bytes the job may print
+   */
+  public void reset(int maxBytes) {
+    this.maxBytes = maxBytes;
+    this.bytesWritten = 0;
+  }
+
+  @Override
+  public void write(int b) {
+    count(1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    count(len);
+  }
+
+  private void count(int len) {
+    bytesWritten += len;
+    if (bytesWritten > maxBytes || bytesWritten < 0) {
+      throw new OutputLimitExceededError(maxBytes);
+    }
+  }
+}
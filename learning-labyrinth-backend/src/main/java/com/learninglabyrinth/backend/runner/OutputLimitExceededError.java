@@ -0,0 +1,13 @@
+package com.learninglabyrinth.backend.runner;
+
+/**
+ * Thrown when the user's code prints more than it is allowed to. This is an
+ * Error rather than an Exception so that the user's own catch blocks cannot
+ * swallow it.
+ */
+public class OutputLimitExceededError extends Error {
+
+  public OutputLimitExceededError(int maxBytes) {
+    super("User code printed more than " + maxBytes + " bytes");
+  }
+}
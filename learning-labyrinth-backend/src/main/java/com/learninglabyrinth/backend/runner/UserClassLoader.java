@@ -1,15 +1,30 @@
 package com.learninglabyrinth.backend.runner;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import javax.tools.JavaCompiler;
-import javax.tools.ToolProvider;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Dynamically loads and compiles Java code at runtime.
  */
 public class UserClassLoader extends ClassLoader {
+  private final Map<String, byte[]> compiledClasses = new HashMap<>();
+
+  /**
+   * Constructor for a class loader that compiles the code it is given.
+   */
+  public UserClassLoader() {
+  }
+
+  /**
+   * Constructor for a class loader that defines classes compiled earlier, so
+   * no compilation is needed.
+   *
+   * @param compiledClasses: The byte code of each class, keyed by binary name
+   */
+  public UserClassLoader(Map<String, byte[]> compiledClasses) {
+    this.compiledClasses.putAll(compiledClasses);
+  }
 
   /**
    * Loads a class from a provided name and code string.
@@ -18,53 +33,35 @@ public class UserClassLoader extends ClassLoader {
    * @param code: The Java source code of the class.
    * @return The loaded class.
    * @throws ClassNotFoundException: If the class cannot be found or loaded.
+   * @throws CompilationFailedException: If the code does not compile.
    */
   public Class<?> loadClass(String name, String code) throws ClassNotFoundException {
-    byte[] byteCode = compileCode(name, code);
-    return defineClass(name, byteCode, 0, byteCode.length);
+    compiledClasses.putAll(InMemoryJavaCompiler.shared().compile(name, code));
+    return loadClass(name);
   }
 
   /**
-   * Compiles the provided Java source code and returns the compiled byte code.
+   * Defines a class compiled from the user's code, including any nested or
+   * helper classes the user declared.
    *
-   * @param name: The name of the class (e.g., "UserCode").
-   * @param code: The Java source code of the class.
-   * @return The compiled byte code.
+   * @param name: The binary name of the class.
+   * @return The defined class.
+   * @throws ClassNotFoundException: If the user's code produced no such class.
    */
-  private byte[] compileCode(String name, String code) {
-    String tempDir = System.getProperty("java.io.tmpdir");
-    Path sourcePath = null;
-    try {
-      // Create the source file path with the correct name
-      Path sourcePathDir = Files.createTempDirectory(Path.of(tempDir), "src");
-      sourcePath = Files.createFile(sourcePathDir.resolve(name + ".java"));
-      Files.write(sourcePath, code.getBytes());
-
-      // Compile the code using Java Compiler API
-      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-      if (compiler == null) {
-        throw new RuntimeException("Java Compiler not available.");
-      }
-      int compilationResult = compiler.run(null, null, null, "-d", tempDir, sourcePath.toString());
-      if (compilationResult != 0) {
-        throw new RuntimeException("Compilation failed");
-      }
-
-      // Load the compiled class file
-      Path classFilePath = Path.of(tempDir, name + ".class");
-
-      return Files.readAllBytes(classFilePath);
-    } catch (IOException e) {
-      throw new RuntimeException("Error handling I/O operations", e);
-    } finally {
-      if (sourcePath != null) {
-        // Clean up temporary files
-        try {
-          Files.deleteIfExists(sourcePath);
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
-      }
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    byte[] byteCode = compiledClasses.get(name);
+    if (byteCode == null) {
+      throw new ClassNotFoundException(name);
     }
+    return defineClass(name, byteCode, 0, byteCode.length);
+  }
+
+  /**
+   * @return The byte code of every class compiled or given to this loader,
+   *         keyed by binary name
+   */
+  public Map<String, byte[]> getCompiledClasses() {
+    return Collections.unmodifiableMap(compiledClasses);
   }
 }
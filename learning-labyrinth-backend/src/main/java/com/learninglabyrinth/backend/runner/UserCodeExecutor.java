@@ -1,46 +1,333 @@
 package com.learninglabyrinth.backend.runner;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
 import com.learninglabyrinth.backend.models.MazeLayout;
+import com.learninglabyrinth.backend.robot.RobotClass;
+import com.learninglabyrinth.backend.robot.RobotStatusEnum;
+import com.learninglabyrinth.backend.robot.RobotTerminatedSignal;
+import com.learninglabyrinth.backend.robot.StepLimitExceededError;
 
 /**
  * Executes user code using reflection.
  */
 public class UserCodeExecutor {
+  // maze and user code run once at worker start up to warm the JIT and javac
+  private static final String WARM_UP_LAYOUT = "2310";
+  private static final String WARM_UP_CODE = "robot.moveForward();";
+  // the real standard error, kept for the executor's own diagnostics while
+  // System.err points at the job's limited output
+  private static final PrintStream LOG = System.err;
+  // measure the CPU time and heap allocated by each job's thread
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
 
   /**
-   * Main function. Runs the user's compiled code using reflection.
-   * 
-   * @param args: The user's Java code as a String or Strings.
+   * Main function. Reads jobs framed by WorkerProtocol from standard input,
+   * runs the user's code using reflection and writes each job's result to
+   * standard output.
+   *
+   * @param args: Nothing to run the single job a UserCodeProcess sends, or
+   *              the single argument "--worker" to start a long-lived worker
+   *              that runs jobs until standard input is closed.
    */
   public static void main(String[] args) {
-    // create MazeLayout argument to pass to user code's class
-    MazeLayout mazeLayout = new MazeLayout();
-    mazeLayout.layout = args[0];
-    String sourceCode = "";
-    // if ProcessBuilder splits code on spaces, recombine and restore spaces
-    for (int i = 1; i < args.length; ++i) {
-      sourceCode += args[i];
-      if (i < args.length - 1) {
-        sourceCode += " ";
+    boolean isWorker = args.length == 1 && args[0].equals(WorkerProtocol.WORKER_FLAG);
+    DataInputStream jobs = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+    DataOutputStream results = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    LimitedOutputStream userOutput = new LimitedOutputStream();
+    try {
+      if (isWorker) {
+        warmUp(userOutput);
+        results.writeInt(WorkerProtocol.READY);
+        results.flush();
+        while (runJob(jobs, results, userOutput)) {
+          // keep running jobs until one leaves threads behind
+        }
+      } else {
+        runJob(jobs, results, userOutput);
+      }
+    } catch (EOFException e) {
+      // the pool closed this worker
+    } catch (IOException e) {
+      e.printStackTrace(LOG);
+    }
+    // threads the user's code left running would keep the JVM alive
+    Runtime.getRuntime().halt(0);
+  }
+
+  /**
+   * Runs a trivial job to pay the class loading and compiler start up cost
+   * before a worker accepts any real job.
+   *
+   * @param userOutput: The stream standing in for System.out and System.err
+   */
+  private static void warmUp(LimitedOutputStream userOutput) {
+    userOutput.reset(Integer.MAX_VALUE);
+    redirectUserOutput(userOutput);
+    MazeLayout warmUpMaze = createMazeLayout(WARM_UP_LAYOUT);
+    runUserCode(warmUpMaze, new RobotClass(warmUpMaze), new UserClassLoader(),
+        UserCodeWrapper.top + WARM_UP_CODE + UserCodeWrapper.bottom, new JobStats(),
+        new HashMap<>());
+  }
+
+  /**
+   * Reads one job and writes back its result. The job is run in a fresh
+   * UserClassLoader, either compiling the job's source or defining byte code
+   * the backend cached from an earlier job. The job's outcome and the robot's
+   * movements are written back one byte each, followed by any classes the job
+   * compiled and what the job cost: compile and run time, CPU time, heap
+   * allocated and the robot's scans and actions. What the user's code prints to
+   * either System.out or System.err is counted against the job's output limit
+   * and discarded, so it can never mix with the results on standard output or
+   * flood the backend's log.
+   *
+   * The code runs on its own thread in its own ThreadGroup. System properties
+   * it changes are put back afterwards. If it leaves any thread running, the
+   * result says the worker is retiring and the worker exits, so the thread
+   * can never touch a later job.
+   *
+   * @param jobs:       Standard input
+   * @param results:    Standard output
+   * @param userOutput: The stream standing in for System.out and System.err
+   * @return False if the worker must not run another job
+   * @throws IOException: Thrown if standard input ends or a stream breaks
+   */
+  private static boolean runJob(DataInputStream jobs,
+                             DataOutputStream results,
+                             LimitedOutputStream userOutput) throws IOException {
+    byte jobType = jobs.readByte();
+    // only ever held in this frame, so the user's code cannot read it to
+    // forge a result
+    long jobId = jobs.readLong();
+    int maxActions = jobs.readInt();
+    int maxOutputBytes = jobs.readInt();
+    MazeLayout mazeLayout = createMazeLayout(WorkerProtocol.readString(jobs));
+    String sourceCode = null;
+    UserClassLoader classLoader;
+    if (jobType == WorkerProtocol.COMPILED_JOB) {
+      classLoader = new UserClassLoader(WorkerProtocol.readClasses(jobs));
+    } else {
+      sourceCode = WorkerProtocol.readString(jobs);
+      classLoader = new UserClassLoader();
+    }
+    // a fresh print stream so nothing buffered by the last job carries over
+    userOutput.reset(maxOutputBytes);
+    redirectUserOutput(userOutput);
+    RobotClass robot = new RobotClass(mazeLayout, maxActions);
+    JobStats stats = new JobStats();
+    Properties properties = (Properties) System.getProperties().clone();
+    Set<Thread> threadsBefore = Thread.getAllStackTraces().keySet();
+    ThreadGroup jobThreads = new ThreadGroup("user-code-job");
+    AttemptOutcomeEnum[] outcomeOfJob = {AttemptOutcomeEnum.ERROR};
+    String jobSource = sourceCode;
+    Map<String, byte[]> compiledClasses = new HashMap<>();
+    Thread jobThread = new Thread(jobThreads, () -> outcomeOfJob[0] =
+        runUserCode(mazeLayout, robot, classLoader, jobSource, stats, compiledClasses),
+        "user-code-job");
+    jobThread.setUncaughtExceptionHandler((thread, e) -> e.printStackTrace(LOG));
+    jobThread.start();
+    joinUninterruptibly(jobThread);
+    AttemptOutcomeEnum outcome = outcomeOfJob[0];
+    boolean retiring = hasLeftoverThreads(jobThreads, threadsBefore);
+    System.setProperties(properties);
+    stats.numScans = robot.getNumScans();
+    stats.numActions = robot.getNumActions();
+    // first, so the backend rejects anything the user's code wrote by hand
+    // before reading any of it
+    WorkerProtocol.writeJobId(results, jobId);
+    WorkerProtocol.writeResult(results, outcome, robot.getMovementRecorder());
+    // send back what was compiled so the backend can cache it
+    WorkerProtocol.writeClasses(results, compiledClasses);
+    WorkerProtocol.writeStats(results, stats);
+    WorkerProtocol.writeRetiring(results, retiring);
+    results.flush();
+    return !retiring;
+  }
+
+  /**
+   * Points System.out and System.err at the job's limited output.
+   *
+   * @param userOutput: The stream counting what the job prints
+   */
+  private static void redirectUserOutput(LimitedOutputStream userOutput) {
+    PrintStream jobOutput = new PrintStream(userOutput, true);
+    System.setOut(jobOutput);
+    System.setErr(jobOutput);
+  }
+
+  /**
+   * Waits for the job's thread to end. The user's code can reach this thread
+   * and interrupt it, which must not end the wait early.
+   *
+   * @param jobThread: The thread running the job
+   */
+  private static void joinUninterruptibly(Thread jobThread) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        jobThread.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      // clear it so it cannot cut a later job short
+      Thread.interrupted();
+    }
+  }
+
+  /**
+   * @param jobThreads:    The group the job ran in
+   * @param threadsBefore: The threads alive before the job started
+   * @return True if the job left a thread running, in its group or any other
+   */
+  private static boolean hasLeftoverThreads(ThreadGroup jobThreads, Set<Thread> threadsBefore) {
+    if (jobThreads.activeCount() > 0) {
+      return true;
+    }
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && !threadsBefore.contains(thread)) {
+        return true;
       }
     }
+    return false;
+  }
+
+  /**
+   * Creates the MazeLayout argument to pass to the user code's class.
+   *
+   * @param layout: String representation of the maze being attempted
+   * @return The maze, with its size derived from the layout
+   */
+  private static MazeLayout createMazeLayout(String layout) {
+    MazeLayout mazeLayout = new MazeLayout();
+    mazeLayout.layout = layout;
+    mazeLayout.size = (int) Math.sqrt(layout.length());
+    return mazeLayout;
+  }
+
+  /**
+   * Loads the user's code in the given class loader and runs its maze
+   * algorithm with the given robot.
+   *
+   * @param mazeLayout:  The maze being attempted
+   * @param robot:       The robot the user's code controls
+   * @param classLoader: A new class loader for this run
+   * @param sourceCode:  The user's code wrapped in the UserCode class, or null
+   *                     if the class loader was given compiled classes
+   * @param stats:       Filled in with the time spent compiling and running
+   *                     and the CPU time and heap allocated by the run
+   * @param compiledClasses: Filled in with a copy of the classes compiled
+   *                     from sourceCode, taken before the user's code runs so
+   *                     it cannot change what the backend caches
+   * @return How the run ended
+   */
+  private static AttemptOutcomeEnum runUserCode(MazeLayout mazeLayout,
+                                                RobotClass robot,
+                                                UserClassLoader classLoader,
+                                                String sourceCode,
+                                                JobStats stats,
+                                                Map<String, byte[]> compiledClasses) {
+    long compileStart = System.nanoTime();
+    long runStart = 0;
+    long cpuStart = 0;
+    long allocatedStart = 0;
+    boolean compiled = false;
     try {
-      // create a new class loader
-      UserClassLoader classLoader = new UserClassLoader();
-      // load the class dynamically
-      Class<?> dynamicClass = classLoader.loadClass("UserCode", sourceCode);
+      // load the class dynamically, compiling it unless already compiled
+      Class<?> dynamicClass = sourceCode == null
+          ? classLoader.loadClass("UserCode")
+          : classLoader.loadClass("UserCode", sourceCode);
+      if (sourceCode != null) {
+        for (Map.Entry<String, byte[]> compiledClass : classLoader.getCompiledClasses().entrySet()) {
+          compiledClasses.put(compiledClass.getKey(), compiledClass.getValue().clone());
+        }
+      }
+      runStart = System.nanoTime();
+      cpuStart = THREADS.getCurrentThreadCpuTime();
+      allocatedStart = currentThreadAllocatedBytes();
+      compiled = true;
+      stats.compileNanos = runStart - compileStart;
       // create an instance of the dynamically loaded class
       Object dynamicObject = dynamicClass
-                             .getDeclaredConstructor(MazeLayout.class)
-                             .newInstance(mazeLayout);
+                             .getDeclaredConstructor(MazeLayout.class, RobotClass.class)
+                             .newInstance(mazeLayout, robot);
       // invoke method dynamically
       Method method = dynamicClass.getMethod("mazeAlgorithm");
       method.invoke(dynamicObject);
+    } catch (CompilationFailedException e) {
+      for (CompilationDiagnostic diagnostic : e.getDiagnostics()) {
+        LOG.println(diagnostic);
+      }
+      return AttemptOutcomeEnum.COMPILE_ERROR;
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RobotTerminatedSignal) {
+        // the robot hit a wall or reached the finish, its status says which
+        return robot.getStatus() == RobotStatusEnum.SUCCESS
+            ? AttemptOutcomeEnum.SUCCESS : AttemptOutcomeEnum.FAILURE;
+      }
+      if (e.getCause() instanceof StepLimitExceededError) {
+        return AttemptOutcomeEnum.STEP_LIMIT;
+      }
+      if (e.getCause() instanceof OutputLimitExceededError) {
+        return AttemptOutcomeEnum.OUTPUT_LIMIT;
+      }
+      e.printStackTrace(LOG);
+      return AttemptOutcomeEnum.ERROR;
     } catch (Exception e) {
-      e.printStackTrace();
+      e.printStackTrace(LOG);
+      return AttemptOutcomeEnum.ERROR;
+    } finally {
+      // however the run ended, a failed compile never starts one
+      if (compiled) {
+        stats.runNanos = System.nanoTime() - runStart;
+        // both reads are -1 where thread CPU time is not supported
+        stats.cpuNanos = THREADS.getCurrentThreadCpuTime() - cpuStart;
+        stats.allocatedBytes = currentThreadAllocatedBytes() - allocatedStart;
+      } else {
+        stats.compileNanos = System.nanoTime() - compileStart;
+      }
     }
+    // the user's code returned without the robot stopping, or caught the
+    // signal with catch (Throwable t)
+    return robot.getStatus() == RobotStatusEnum.SUCCESS
+        ? AttemptOutcomeEnum.SUCCESS : AttemptOutcomeEnum.FAILURE;
   }
-}
 
+  /**
+   * Heap allocated by this thread so far. Unlike heap in use, this counts
+   * only the job's own allocations, whatever earlier jobs left behind and
+   * whenever the garbage collector runs.
+   *
+   * @return The bytes allocated, or -1 where the JVM cannot measure it
+   */
+  private static long currentThreadAllocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()
+        && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+}
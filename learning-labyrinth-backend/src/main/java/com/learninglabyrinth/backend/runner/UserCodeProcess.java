@@ -1,70 +1,148 @@
 package com.learninglabyrinth.backend.runner;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
 
 /**
- * Starts a new process and passes the user's code to it as command line
- * arguments.
+ * Starts a new process and sends the user's code to it over its standard
+ * input as a single WorkerProtocol job.
  */
 public class UserCodeProcess {
 
+  private final File directory;
+  private final String jar;
   private String userCodeClass;
 
+  /**
+   * @param directory: The directory containing the executor jar
+   * @param jar:       The file name of the executor jar
+   */
+  public UserCodeProcess(File directory, String jar) {
+    this.directory = directory;
+    this.jar = jar;
+  }
+
   /**
    * Starts a new process using ProcessBuilder to run the user's code.
    *
-   * @param code       Source code to be compiled and run
-   * @param mazeLayout String representation of the maze being attempted
-   * @return Output of the user's code execution
+   * @param code           Source code to be compiled and run
+   * @param mazeLayout     String representation of the maze being attempted
+   * @param timeoutMs      Milliseconds the process may run before it is killed
+   * @param maxActions     Robot moves, rotations and scans the code may make
+   * @param maxOutputBytes Bytes the code may print
+   * @return Outcome and movements of the run, with a TIMEOUT outcome if the
+   *         process was killed or ERROR if it failed
    */
-  public String startProcess(String code, String mazeLayout) {
-    String output = "";
+  public WorkerResult startProcess(String code,
+                                   String mazeLayout,
+                                   long timeoutMs,
+                                   int maxActions,
+                                   int maxOutputBytes) {
+    AttemptOutcomeEnum outcome = AttemptOutcomeEnum.ERROR;
+    List<MovementEnum> movements = List.of();
+    Map<String, byte[]> compiledClasses = Map.of();
+    JobStats stats = null;
+    long startNanos = System.nanoTime();
+    long spawnNanos = 0;
+    long readNanos = 0;
+    AtomicBoolean timedOut = new AtomicBoolean();
 
     // Wrap user's code
     userCodeClass = UserCodeWrapper.top + code + UserCodeWrapper.bottom;
-    // Double the escaped double quotes to prevent removal by ProcessBuilder
-    userCodeClass = userCodeClass.replace("\"", "\"\"");
 
-    // Set the working directory to /app
     ProcessBuilder processBuilder = new ProcessBuilder(
         "java",
         "-jar",
-        "user-code-executor-0.0.1-SNAPSHOT.jar",
-        mazeLayout,
-        userCodeClass);
-
-    // Set the working directory for the process
-    processBuilder.directory(new File("/app"));
+        jar);
 
-    // Use a StringBuilder for output
-    StringBuilder outputBuilder = new StringBuilder();
+    // Set the working directory to the one holding the executor jar
+    processBuilder.directory(directory);
 
+    Process startedProcess = null;
     try {
-      // Inherit I/O streams from the parent process
       Process process = processBuilder.start();
+      startedProcess = process;
+
+      // Stack traces from the process go to the backend's log, up to a limit
+      ErrorStreamPump.start(process, "user-code-process-" + process.pid());
 
-      // Read the output of the process
-      try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-        String line;
-        while ((line = reader.readLine()) != null) {
-          outputBuilder.append(line).append(System.lineSeparator());
+      // Kill the process if it is still running when its time is up
+      CompletableFuture.runAsync(() -> {
+        if (process.isAlive()) {
+          timedOut.set(true);
+          process.destroyForcibly();
         }
+      }, CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS));
+
+      // Send the job, closing standard input tells the process it is the only one
+      long jobId;
+      try (DataOutputStream job = new DataOutputStream(
+          new BufferedOutputStream(process.getOutputStream()))) {
+        jobId = WorkerProtocol.writeJobHeader(job, WorkerProtocol.SOURCE_JOB,
+            maxActions, maxOutputBytes);
+        WorkerProtocol.writeString(job, mazeLayout);
+        WorkerProtocol.writeString(job, userCodeClass);
       }
 
-      // Wait for the process to finish and get the exit code
-      int exitCode = process.waitFor();
-      System.out.println("Child Process exited with code " + exitCode);
+      // Read the result of the process
+      try (DataInputStream result = new DataInputStream(
+          new BufferedInputStream(process.getInputStream()))) {
+        // rejects anything the user's code wrote by hand before reading it
+        WorkerProtocol.readJobId(result, jobId);
+        long readStart = System.nanoTime();
+        AttemptOutcomeEnum outcomeRead = WorkerProtocol.readOutcome(result);
+        List<MovementEnum> movementsRead = WorkerProtocol.readMovements(result, maxActions);
+        Map<String, byte[]> classesRead = WorkerProtocol.readClasses(result);
+        JobStats statsRead = WorkerProtocol.readStats(result);
+        // the process exits after its only job either way
+        WorkerProtocol.readRetiring(result);
+        // only use the result once all of it was read
+        outcome = outcomeRead;
+        movements = movementsRead;
+        compiledClasses = classesRead;
+        stats = statsRead;
+        readNanos = System.nanoTime() - readStart;
+        // whatever the job did not spend compiling and running went on
+        // starting the JVM
+        spawnNanos = Math.max(0,
+            readStart - startNanos - stats.compileNanos - stats.runNanos);
+      }
 
-      // Access the captured output
-      output = outputBuilder.toString();
-    } catch (IOException | InterruptedException e) {
+      // Wait for the process to finish, a result was read so only odd exits
+      // are worth logging
+      int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        System.err.println("User code process exited with code " + exitCode);
+      }
+    } catch (IOException | InterruptedException | RuntimeException e) {
       // Log the exception or print a meaningful error message
-      e.printStackTrace();
+      if (!timedOut.get()) {
+        e.printStackTrace();
+      }
+    } finally {
+      // never leave a process behind whose result could not be read
+      if (startedProcess != null && startedProcess.isAlive()) {
+        startedProcess.destroyForcibly();
+      }
     }
 
-    return output;
+    WorkerResult workerResult = new WorkerResult(
+        timedOut.get() ? AttemptOutcomeEnum.TIMEOUT : outcome,
+        movements, compiledClasses, stats);
+    workerResult.readNanos = readNanos;
+    workerResult.spawnNanos = spawnNanos;
+    return workerResult;
   }
 }
@@ -0,0 +1,177 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+/**
+ * A long-lived user code executor process. The process is started once and
+ * then runs any number of jobs sent to it over its standard input, so the JVM
+ * and compiler start up cost is paid once per worker instead of per attempt.
+ */
+public class UserCodeWorker implements Closeable {
+  private final Process process;
+  private final DataOutputStream toWorker;
+  private final DataInputStream fromWorker;
+  private final int maxActions;
+  private final int maxOutputBytes;
+  private int jobsRun;
+  private boolean retiring;
+  private long jobId;
+  private volatile boolean timedOut;
+
+  private UserCodeWorker(Process process, int maxActions, int maxOutputBytes) {
+    this.process = process;
+    this.maxActions = maxActions;
+    this.maxOutputBytes = maxOutputBytes;
+    this.toWorker = new DataOutputStream(
+        new BufferedOutputStream(process.getOutputStream()));
+    this.fromWorker = new DataInputStream(
+        new BufferedInputStream(process.getInputStream()));
+  }
+
+  /**
+   * Starts a worker process and waits until it has warmed up.
+   *
+   * @param directory:      The directory containing the executor jar
+   * @param jar:            The file name of the executor jar
+   * @param maxActions:     Robot actions each job may perform
+   * @param maxOutputBytes: Bytes each job may print
+   * @return The started worker
+   * @throws IOException: Thrown if the process cannot be started or does not
+   *                      report that it is ready
+   */
+  public static UserCodeWorker start(File directory,
+                                     String jar,
+                                     int maxActions,
+                                     int maxOutputBytes) throws IOException {
+    ProcessBuilder processBuilder = new ProcessBuilder(
+        "java",
+        "-jar",
+        jar,
+        WorkerProtocol.WORKER_FLAG);
+    processBuilder.directory(directory);
+    Process process = processBuilder.start();
+    // stack traces from the worker go to the backend's log, up to a limit
+    ErrorStreamPump.start(process, "user-code-worker-" + process.pid());
+    UserCodeWorker worker = new UserCodeWorker(process, maxActions, maxOutputBytes);
+    try {
+      if (worker.fromWorker.readInt() != WorkerProtocol.READY) {
+        throw new IOException("Worker did not report ready");
+      }
+    } catch (IOException e) {
+      worker.close();
+      throw e;
+    }
+    return worker;
+  }
+
+  /**
+   * Compiles and runs the user's code against the given maze in this worker.
+   *
+   * @param sourceCode: The user's code wrapped in the UserCode class
+   * @param mazeLayout: String representation of the maze being attempted
+   * @return Outcome and movements of the run and the compiled classes
+   * @throws IOException: Thrown if the worker died or the pipe broke, in which
+   *                      case this worker must not be used again
+   */
+  public WorkerResult execute(String sourceCode, String mazeLayout)
+      throws IOException {
+    writeJobHeader(WorkerProtocol.SOURCE_JOB);
+    WorkerProtocol.writeString(toWorker, mazeLayout);
+    WorkerProtocol.writeString(toWorker, sourceCode);
+    return readResult();
+  }
+
+  /**
+   * Runs previously compiled user code against the given maze in this worker.
+   *
+   * @param compiledClasses: The classes compiled from the user's code
+   * @param mazeLayout:      String representation of the maze being attempted
+   * @return Outcome and movements of the run
+   * @throws IOException: Thrown if the worker died or the pipe broke, in which
+   *                      case this worker must not be used again
+   */
+  public WorkerResult execute(Map<String, byte[]> compiledClasses,
+                              String mazeLayout) throws IOException {
+    writeJobHeader(WorkerProtocol.COMPILED_JOB);
+    WorkerProtocol.writeString(toWorker, mazeLayout);
+    WorkerProtocol.writeClasses(toWorker, compiledClasses);
+    return readResult();
+  }
+
+  private void writeJobHeader(byte jobType) throws IOException {
+    ++jobsRun;
+    jobId = WorkerProtocol.writeJobHeader(toWorker, jobType, maxActions, maxOutputBytes);
+  }
+
+  private WorkerResult readResult() throws IOException {
+    toWorker.flush();
+    // the id arrives once the job is done, time the rest of the frame
+    WorkerProtocol.readJobId(fromWorker, jobId);
+    long readStart = System.nanoTime();
+    AttemptOutcomeEnum outcome = WorkerProtocol.readOutcome(fromWorker);
+    List<MovementEnum> movements = WorkerProtocol.readMovements(fromWorker, maxActions);
+    Map<String, byte[]> compiledClasses = WorkerProtocol.readClasses(fromWorker);
+    WorkerResult result = new WorkerResult(outcome, movements, compiledClasses,
+        WorkerProtocol.readStats(fromWorker));
+    retiring = WorkerProtocol.readRetiring(fromWorker);
+    result.readNanos = System.nanoTime() - readStart;
+    return result;
+  }
+
+  /**
+   * @return The number of jobs this worker has been given
+   */
+  public int getJobsRun() {
+    return jobsRun;
+  }
+
+  /**
+   * @return True if the last job left threads running, so the worker exits
+   *         and must not be given another job
+   */
+  public boolean isRetiring() {
+    return retiring;
+  }
+
+  /**
+   * @return True if the worker process has not exited
+   */
+  public boolean isAlive() {
+    return process.isAlive();
+  }
+
+  /**
+   * Kills the worker because its current job ran out of time. The pending
+   * execute() call then fails and isTimedOut() reports why.
+   */
+  public void kill() {
+    timedOut = true;
+    process.destroyForcibly();
+  }
+
+  /**
+   * @return True if the worker was killed by kill()
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /**
+   * Stops the worker process.
+   */
+  @Override
+  public void close() {
+    process.destroyForcibly();
+  }
+}
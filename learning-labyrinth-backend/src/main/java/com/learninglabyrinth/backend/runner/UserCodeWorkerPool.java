@@ -0,0 +1,268 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps a fixed number of warm UserCodeWorker processes and hands each
+ * attempt to an idle one. Workers that die (e.g. the user's code called
+ * System.exit), are killed for running past the time limit, or have run too
+ * many jobs are replaced on demand.
+ */
+@Component
+public class UserCodeWorkerPool {
+  private final boolean enabled;
+  private final int size;
+  private final int maxJobsPerWorker;
+  private final File directory;
+  private final String jar;
+  private final AtomicInteger liveWorkers;
+  private final LinkedBlockingQueue<UserCodeWorker> idleWorkers;
+  private final BytecodeCache bytecodeCache;
+  private final long timeoutMs;
+  private final int maxActions;
+  private final int maxOutputBytes;
+  private final ScheduledThreadPoolExecutor watchdog;
+  private final Timer spawnTimer;
+
+  /**
+   * Constructor. Reads the pool settings from the application properties and
+   * registers the pool's metrics with the actuator.
+   *
+   * @param registry:         The actuator's meter registry
+   * @param enabled:          False to fork a new process for every attempt
+   * @param size:             The maximum number of worker processes
+   * @param maxJobsPerWorker: Jobs a worker runs before it is replaced
+   * @param directory:        The directory containing the executor jar
+   * @param jar:              The file name of the executor jar
+   * @param bytecodeCache:    Compiled classes of earlier attempts
+   * @param timeoutMs:        Wall clock time a job may take before its worker
+   *                          is killed
+   * @param maxActions:       Robot moves, rotations and scans a job may make
+   * @param maxOutputBytes:   Bytes a job may print
+   */
+  public UserCodeWorkerPool(MeterRegistry registry,
+      @Value("${labyrinth.executor.pool.enabled:true}") boolean enabled,
+      @Value("${labyrinth.executor.pool.size:4}") int size,
+      @Value("${labyrinth.executor.pool.max-jobs-per-worker:500}") int maxJobsPerWorker,
+      @Value("${labyrinth.executor.directory:/app}") String directory,
+      @Value("${labyrinth.executor.jar:user-code-executor-0.0.1-SNAPSHOT.jar}") String jar,
+      BytecodeCache bytecodeCache,
+      @Value("${labyrinth.executor.timeout-ms:5000}") long timeoutMs,
+      @Value("${labyrinth.executor.max-actions:1000000}") int maxActions,
+      @Value("${labyrinth.executor.max-output-bytes:65536}") int maxOutputBytes) {
+    this.enabled = enabled;
+    this.size = size;
+    this.maxJobsPerWorker = maxJobsPerWorker;
+    this.directory = new File(directory);
+    this.jar = jar;
+    this.liveWorkers = new AtomicInteger();
+    this.idleWorkers = new LinkedBlockingQueue<>();
+    this.bytecodeCache = bytecodeCache;
+    this.timeoutMs = timeoutMs;
+    this.maxActions = maxActions;
+    this.maxOutputBytes = maxOutputBytes;
+    this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "user-code-worker-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.watchdog.setRemoveOnCancelPolicy(true);
+    this.spawnTimer = Timer.builder("labyrinth.executor.spawn").register(registry);
+    Gauge.builder("labyrinth.executor.workers", liveWorkers, AtomicInteger::get)
+        .tag("state", "live")
+        .register(registry);
+    Gauge.builder("labyrinth.executor.workers", idleWorkers, LinkedBlockingQueue::size)
+        .tag("state", "idle")
+        .register(registry);
+  }
+
+  /**
+   * Starts the workers in the background so the first attempts do not wait
+   * for a JVM to start.
+   */
+  @PostConstruct
+  public void prewarm() {
+    if (!enabled) {
+      return;
+    }
+    Thread warmer = new Thread(() -> {
+      try {
+        UserCodeWorker worker;
+        while ((worker = startWorkerIfBelowSize()) != null) {
+          idleWorkers.offer(worker);
+        }
+      } catch (IOException e) {
+        // workers will be started on demand instead
+        e.printStackTrace();
+      }
+    }, "user-code-worker-prewarm");
+    warmer.setDaemon(true);
+    warmer.start();
+  }
+
+  /**
+   * Runs the user's code in an idle worker, waiting for one to become free if
+   * all of them are busy. Code that was compiled before is sent as byte code
+   * so the worker does not compile it again.
+   *
+   * @param code:       Source code to be compiled and run
+   * @param mazeLayout: String representation of the maze being attempted
+   * @return Outcome and movements of the run, with a TIMEOUT outcome if it
+   *         ran out of time or ERROR if the worker failed, and how long the
+   *         job waited for a worker
+   */
+  public WorkerResult execute(String code, String mazeLayout) {
+    if (!enabled) {
+      WorkerResult result = new UserCodeProcess(directory, jar).startProcess(code, mazeLayout,
+          timeoutMs, maxActions, maxOutputBytes);
+      result.deterministic = DeterminismCheck.isDeterministic(result.compiledClasses);
+      return result;
+    }
+    String sourceCode = UserCodeWrapper.top + code + UserCodeWrapper.bottom;
+    Map<String, byte[]> compiledClasses = bytecodeCache.get(sourceCode);
+    UserCodeWorker worker = null;
+    WorkerResult result;
+    long waitStart = System.nanoTime();
+    long waitNanos = 0;
+    long spawnNanos = 0;
+    boolean finished = false;
+    try {
+      // take an idle worker, start one if the pool is not yet full, or wait
+      // for a busy worker to be released
+      worker = idleWorkers.poll();
+      while (worker == null) {
+        long spawnStart = System.nanoTime();
+        worker = startWorkerIfBelowSize();
+        if (worker == null) {
+          worker = idleWorkers.poll(100, TimeUnit.MILLISECONDS);
+        } else {
+          spawnNanos = System.nanoTime() - spawnStart;
+        }
+      }
+      waitNanos = System.nanoTime() - waitStart - spawnNanos;
+      // kill the worker if the job is still running when its time is up
+      ScheduledFuture<?> deadline =
+          watchdog.schedule(worker::kill, timeoutMs, TimeUnit.MILLISECONDS);
+      try {
+        if (compiledClasses == null) {
+          result = worker.execute(sourceCode, mazeLayout);
+          if (!result.compiledClasses.isEmpty()) {
+            bytecodeCache.put(sourceCode, result.compiledClasses);
+          }
+        } else {
+          result = worker.execute(compiledClasses, mazeLayout);
+        }
+      } finally {
+        deadline.cancel(false);
+      }
+      result.deterministic = DeterminismCheck.isDeterministic(
+          compiledClasses == null ? result.compiledClasses : compiledClasses);
+      finished = true;
+    } catch (IOException | RuntimeException e) {
+      // the worker could not start, died mid job, was killed by the watchdog
+      // or sent a result that could not be decoded
+      AttemptOutcomeEnum outcome = AttemptOutcomeEnum.ERROR;
+      if (worker != null && worker.isTimedOut()) {
+        outcome = AttemptOutcomeEnum.TIMEOUT;
+      } else {
+        e.printStackTrace();
+      }
+      result = new WorkerResult(outcome, List.of(), Map.of(), null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new WorkerResult(AttemptOutcomeEnum.ERROR, List.of(), Map.of(), null);
+    } finally {
+      // however the job ended, give back the worker's slot, never reusing a
+      // worker whose job did not finish cleanly
+      if (worker != null) {
+        if (finished) {
+          release(worker);
+        } else {
+          retire(worker);
+        }
+      }
+    }
+    result.waitNanos = waitNanos;
+    result.spawnNanos = spawnNanos;
+    return result;
+  }
+
+  /**
+   * Starts a new worker unless the pool already has its maximum number.
+   *
+   * @return The new worker, or null if the pool is full
+   * @throws IOException: Thrown if the worker process could not be started
+   */
+  private UserCodeWorker startWorkerIfBelowSize() throws IOException {
+    if (liveWorkers.incrementAndGet() > size) {
+      liveWorkers.decrementAndGet();
+      return null;
+    }
+    long start = System.nanoTime();
+    try {
+      UserCodeWorker worker = UserCodeWorker.start(directory, jar, maxActions, maxOutputBytes);
+      spawnTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return worker;
+    } catch (IOException e) {
+      liveWorkers.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a worker to the pool, or stops it if it is no longer usable or
+   * its last job left threads running.
+   *
+   * @param worker: The worker used for the last job
+   */
+  private void release(UserCodeWorker worker) {
+    if (worker.isAlive() && !worker.isRetiring()
+        && worker.getJobsRun() < maxJobsPerWorker) {
+      idleWorkers.offer(worker);
+    } else {
+      retire(worker);
+    }
+  }
+
+  /**
+   * Stops a worker and frees its slot in the pool.
+   *
+   * @param worker: The worker to stop
+   */
+  private void retire(UserCodeWorker worker) {
+    worker.close();
+    liveWorkers.decrementAndGet();
+  }
+
+  /**
+   * Stops every idle worker when the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    watchdog.shutdownNow();
+    UserCodeWorker worker;
+    while ((worker = idleWorkers.poll()) != null) {
+      worker.close();
+      liveWorkers.decrementAndGet();
+    }
+  }
+}
@@ -10,21 +10,18 @@ public class UserCodeWrapper {
     + "import com.learninglabyrinth.backend.models.MazeLayout;\n"
     + "import com.learninglabyrinth.backend.robot.*;\n"
     + "public class UserCode {\n"
-    + "  private MazeLayout mazeLayout;\n"
-    + "  private RobotClass robot;\n"
-    + "  public UserCode(MazeLayout mazeLayout) {\n"
+    + "  private final MazeLayout mazeLayout;\n"
+    + "  private final RobotClass robot;\n"
+    + "  public UserCode(MazeLayout mazeLayout, RobotClass robot) {\n"
     + "    this.mazeLayout = mazeLayout;\n"
-    + "    this.mazeLayout.size = (int) Math.sqrt(mazeLayout.layout.length());\n"
-    + "    this.robot = new RobotClass(mazeLayout);\n"
+    + "    this.robot = robot;\n"
     + "  }\n"
     + "  public void mazeAlgorithm() throws Exception {\n"
     + "    try {\n";
   
   protected static final String bottom =
      "    } catch (Exception e) {\n"
-     + "    } finally {\n"
-     + "      System.out.println(robot.getMovements());"
-     + "    }"
+     + "    }\n"
      + "  }\n"
      + "}\n";
 }
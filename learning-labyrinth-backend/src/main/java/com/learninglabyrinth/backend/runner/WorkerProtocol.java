@@ -0,0 +1,305 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+import com.learninglabyrinth.backend.robot.MovementRecorder;
+
+/**
+ * Framing shared by the backend and the user code executor workers. Strings
+ * travel as a length prefix followed by their UTF-8 bytes, so source code of
+ * any content can be sent without quoting. Results travel as the id of the
+ * job, an outcome byte and a movement count followed by one byte per
+ * movement, then the compiled classes, the job's stats and whether the
+ * worker is retiring. The id is random and only known to the backend and the
+ * executor's own stack. It comes first, so anything the user's code writes
+ * to standard output by hand is rejected before a single length is read from
+ * it, and every length is checked against a limit before anything is
+ * allocated for it.
+ */
+public final class WorkerProtocol {
+  // command line flag that starts the executor as a long-lived worker
+  public static final String WORKER_FLAG = "--worker";
+  // written once by a worker after it has warmed up and can accept jobs
+  public static final int READY = 0x4C4C5752;
+  // job carrying source code the worker must compile
+  public static final byte SOURCE_JOB = 1;
+  // job carrying byte code compiled by an earlier job
+  public static final byte COMPILED_JOB = 2;
+
+  // looked up by ordinal when decoding results, values() copies every call
+  private static final AttemptOutcomeEnum[] OUTCOMES = AttemptOutcomeEnum.values();
+  private static final MovementEnum[] MOVEMENTS = MovementEnum.values();
+  private static final SecureRandom JOB_IDS = new SecureRandom();
+  // limits on what a frame may claim to hold
+  private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+  private static final int MAX_CLASSES = 1024;
+  private static final int MAX_CLASS_BYTES = 16 * 1024 * 1024;
+
+  private WorkerProtocol() {
+  }
+
+  /**
+   * Writes the header of a job.
+   *
+   * @param out:            The stream to write to
+   * @param jobType:        SOURCE_JOB or COMPILED_JOB
+   * @param maxActions:     Robot actions the job may perform
+   * @param maxOutputBytes: Bytes the job may print
+   * @return The id of the job, which its result must end with
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static long writeJobHeader(DataOutputStream out,
+                                    byte jobType,
+                                    int maxActions,
+                                    int maxOutputBytes) throws IOException {
+    long jobId = JOB_IDS.nextLong();
+    out.writeByte(jobType);
+    out.writeLong(jobId);
+    out.writeInt(maxActions);
+    out.writeInt(maxOutputBytes);
+    return jobId;
+  }
+
+  /**
+   * Writes the outcome of a job and the robot's movements, one byte each.
+   *
+   * @param out:       The stream to write to
+   * @param outcome:   How the job ended
+   * @param movements: The movements the robot made
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeResult(DataOutputStream out,
+                                 AttemptOutcomeEnum outcome,
+                                 MovementRecorder movements)
+      throws IOException {
+    out.writeByte(outcome.ordinal());
+    out.writeInt(movements.size());
+    movements.writeTo(out);
+  }
+
+  /**
+   * Reads the outcome written by writeResult().
+   *
+   * @param in: The stream to read from
+   * @return How the job ended
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      holds an unknown outcome
+   */
+  public static AttemptOutcomeEnum readOutcome(DataInputStream in)
+      throws IOException {
+    int ordinal = in.readUnsignedByte();
+    if (ordinal >= OUTCOMES.length) {
+      throw new IOException("Unknown outcome " + ordinal);
+    }
+    return OUTCOMES[ordinal];
+  }
+
+  /**
+   * Reads the movements written by writeResult(), after its outcome.
+   *
+   * @param in:         The stream to read from
+   * @param maxActions: Robot actions the job could perform, each of which
+   *                    records at most one movement besides the final
+   *                    SUCCESS or FAILURE
+   * @return The movements the robot made
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      holds too many or unknown movements
+   */
+  public static List<MovementEnum> readMovements(DataInputStream in, int maxActions)
+      throws IOException {
+    byte[] packed = new byte[readLength(in, maxActions + 1, "movements")];
+    in.readFully(packed);
+    List<MovementEnum> movements = new ArrayList<>(packed.length + 1);
+    for (byte ordinal : packed) {
+      if (ordinal < 0 || ordinal >= MOVEMENTS.length) {
+        throw new IOException("Unknown movement " + ordinal);
+      }
+      movements.add(MOVEMENTS[ordinal]);
+    }
+    return movements;
+  }
+
+  /**
+   * Writes a length-prefixed UTF-8 string to the stream.
+   *
+   * @param out:   The stream to write to
+   * @param value: The string to write
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeString(DataOutputStream out, String value)
+      throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by writeString().
+   *
+   * @param in: The stream to read from
+   * @return The string that was read
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      claims a string too long to be one
+   */
+  public static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readLength(in, MAX_STRING_BYTES, "string bytes")];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes compiled classes as a count followed by name and byte code pairs.
+   *
+   * @param out:             The stream to write to
+   * @param compiledClasses: The byte code of each class, keyed by binary name
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeClasses(DataOutputStream out,
+                                  Map<String, byte[]> compiledClasses)
+      throws IOException {
+    out.writeInt(compiledClasses.size());
+    for (Map.Entry<String, byte[]> compiledClass : compiledClasses.entrySet()) {
+      writeString(out, compiledClass.getKey());
+      out.writeInt(compiledClass.getValue().length);
+      out.write(compiledClass.getValue());
+    }
+  }
+
+  /**
+   * Reads classes written by writeClasses().
+   *
+   * @param in: The stream to read from
+   * @return The byte code of each class, keyed by binary name
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      claims more classes or byte code than a job compiles
+   */
+  public static Map<String, byte[]> readClasses(DataInputStream in)
+      throws IOException {
+    int count = readLength(in, MAX_CLASSES, "classes");
+    int byteCodeLeft = MAX_CLASS_BYTES;
+    Map<String, byte[]> compiledClasses = new HashMap<>();
+    for (int i = 0; i < count; ++i) {
+      String name = readString(in);
+      byte[] byteCode = new byte[readLength(in, byteCodeLeft, "byte code bytes")];
+      byteCodeLeft -= byteCode.length;
+      in.readFully(byteCode);
+      compiledClasses.put(name, byteCode);
+    }
+    return compiledClasses;
+  }
+
+  /**
+   * Writes what a job cost, after its compiled classes.
+   *
+   * @param out:   The stream to write to
+   * @param stats: The job's stats
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeStats(DataOutputStream out, JobStats stats)
+      throws IOException {
+    out.writeLong(stats.compileNanos);
+    out.writeLong(stats.runNanos);
+    out.writeLong(stats.cpuNanos);
+    out.writeLong(stats.allocatedBytes);
+    out.writeInt(stats.numScans);
+    out.writeInt(stats.numActions);
+  }
+
+  /**
+   * Reads stats written by writeStats().
+   *
+   * @param in: The stream to read from
+   * @return The job's stats
+   * @throws IOException: Thrown if the stream ends or cannot be read from
+   */
+  public static JobStats readStats(DataInputStream in) throws IOException {
+    JobStats stats = new JobStats();
+    stats.compileNanos = in.readLong();
+    stats.runNanos = in.readLong();
+    stats.cpuNanos = in.readLong();
+    stats.allocatedBytes = in.readLong();
+    stats.numScans = in.readInt();
+    stats.numActions = in.readInt();
+    return stats;
+  }
+
+  /**
+   * Writes whether the worker exits after this job, the last part of a
+   * result.
+   *
+   * @param out:      The stream to write to
+   * @param retiring: True if the worker will not run another job
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeRetiring(DataOutputStream out, boolean retiring)
+      throws IOException {
+    out.writeBoolean(retiring);
+  }
+
+  /**
+   * Reads what writeRetiring() wrote.
+   *
+   * @param in: The stream to read from
+   * @return True if the worker will not run another job
+   * @throws IOException: Thrown if the stream ends or cannot be read from
+   */
+  public static boolean readRetiring(DataInputStream in) throws IOException {
+    return in.readBoolean();
+  }
+
+  /**
+   * Writes the id of the job a result belongs to, the start of the result.
+   *
+   * @param out:   The stream to write to
+   * @param jobId: The id from the job's header
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public static void writeJobId(DataOutputStream out, long jobId)
+      throws IOException {
+    out.writeLong(jobId);
+  }
+
+  /**
+   * Reads the id written by writeJobId() and checks it.
+   *
+   * @param in:    The stream to read from
+   * @param jobId: The id returned by writeJobHeader()
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      the result does not belong to the job
+   */
+  public static void readJobId(DataInputStream in, long jobId) throws IOException {
+    if (in.readLong() != jobId) {
+      throw new IOException("Result does not belong to the job");
+    }
+  }
+
+  /**
+   * Reads a length or count and checks it before anything is allocated.
+   *
+   * @param in:   The stream to read from
+   * @param max:  The largest value allowed
+   * @param what: What is being counted, for the error message
+   * @return The length
+   * @throws IOException: Thrown if the stream ends, cannot be read from or
+   *                      the length is negative or over max
+   */
+  private static int readLength(DataInputStream in, int max, String what)
+      throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > max) {
+      throw new IOException("Frame claims " + length + " " + what + ", at most "
+          + max + " allowed");
+    }
+    return length;
+  }
+}
@@ -0,0 +1,31 @@
+package com.learninglabyrinth.backend.runner;
+
+import java.util.List;
+import java.util.Map;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+/**
+ * What a UserCodeWorker sends back for a single job.
+ */
+public class WorkerResult {
+  public final AttemptOutcomeEnum outcome;          // how the job ended
+  public final List<MovementEnum> movements;        // movements of the robot
+  public final Map<String, byte[]> compiledClasses; // empty unless compiled
+  public final JobStats stats;                      // null if the job never finished
+  public long readNanos;  // reading the result once the executor answered
+  public long waitNanos;  // waiting for an idle worker
+  public long spawnNanos; // starting a worker process for this job
+  public boolean deterministic; // see DeterminismCheck, false unless checked
+
+  public WorkerResult(AttemptOutcomeEnum outcome,
+                      List<MovementEnum> movements,
+                      Map<String, byte[]> compiledClasses,
+                      JobStats stats) {
+    this.outcome = outcome;
+    this.movements = movements;
+    this.compiledClasses = compiledClasses;
+    this.stats = stats;
+  }
+}
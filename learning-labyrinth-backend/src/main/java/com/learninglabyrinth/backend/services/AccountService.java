@@ -1,13 +1,22 @@
 package com.learninglabyrinth.backend.services;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import com.learninglabyrinth.backend.dto.AccountImportResult;
 import com.learninglabyrinth.backend.dto.LoginInfo;
 import com.learninglabyrinth.backend.dto.LoginResponse;
 import com.learninglabyrinth.backend.models.Account;
 import com.learninglabyrinth.backend.repositories.AccountRepository;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -18,17 +27,31 @@ import java.util.UUID;
  */
 @Service
 public class AccountService {
+  // most accounts that may be imported at once
+  public static final int MAX_IMPORT_SIZE = 1000;
+
   public AccountRepository accountRepository;
-  public static HashMap<UUID, Account> hashMap = new HashMap<>();
+  SessionStore sessionStore;
+  PasswordHasher passwordHasher;
+  TransactionTemplate transactionTemplate;
   RestTemplate client;
 
   /**
    * Constructor. Instantiates fields of this instance.
    * 
    * @param accountRepository: The repository that will handle the MySQL requests
+   * @param sessionStore:      The logged in users
+   * @param passwordHasher:    Hashes and checks passwords
+   * @param transactionTemplate: Runs the insert of imported accounts in a
+   *                            transaction
    */
-  public AccountService(AccountRepository accountRepository) {
+  public AccountService(AccountRepository accountRepository, SessionStore sessionStore,
+                        PasswordHasher passwordHasher,
+                        TransactionTemplate transactionTemplate) {
     this.accountRepository = accountRepository;
+    this.sessionStore = sessionStore;
+    this.passwordHasher = passwordHasher;
+    this.transactionTemplate = transactionTemplate;
     this.client = new RestTemplate();
   }
 
@@ -51,9 +74,81 @@ public class AccountService {
       throw new IllegalArgumentException();
     }
     // hash password
-    int passwordHash = account.password.hashCode();
-    account.password = Integer.toString(passwordHash);
-    return accountRepository.save(account);
+    account.password = passwordHasher.encode(account.password);
+    try {
+      return accountRepository.save(account);
+    } catch (DataIntegrityViolationException e) {
+      // user name was taken since it was checked
+      throw new IllegalCallerException();
+    }
+  }
+
+  /**
+   * Creates the accounts of a whole class at once. Accounts with a blank user
+   * name or password, or a user name that is taken or repeated, are skipped.
+   * The passwords are hashed before the transaction starts, so it only holds
+   * a connection for the final check of the user names and the batched
+   * insert.
+   * 
+   * @param token:    The login token of the admin importing the accounts
+   * @param accounts: The accounts to create
+   * @return The number of accounts created and the user names skipped
+   * @throws IllegalAccessException:   Thrown if the user is not an admin
+   * @throws IllegalArgumentException: Thrown if there are more than
+   *                                   MAX_IMPORT_SIZE accounts
+   */
+  public AccountImportResult importAccounts(UUID token, List<Account> accounts)
+      throws IllegalAccessException {
+    Account tokenedAccount = sessionStore.get(token);
+    if (tokenedAccount == null || !tokenedAccount.isAdmin) {
+      throw new IllegalAccessException();
+    }
+    if (accounts.size() > MAX_IMPORT_SIZE) {
+      throw new IllegalArgumentException();
+    }
+    AccountImportResult result = new AccountImportResult();
+    result.skipped = new ArrayList<>();
+    // keep the first account for each user name
+    Map<String, Account> byUsername = new LinkedHashMap<>();
+    for (Account account : accounts) {
+      if (account.username == null || account.username.equals("")
+          || account.password == null || account.password.equals("")
+          || byUsername.putIfAbsent(account.username, account) != null) {
+        result.skipped.add(account.username);
+      }
+    }
+    // one indexed lookup for every user name, so taken ones are not hashed
+    Set<String> taken = new HashSet<>(accountRepository.findTakenUsernames(byUsername.keySet()));
+    List<Account> toHash = new ArrayList<>(byUsername.size());
+    List<String> passwords = new ArrayList<>(byUsername.size());
+    for (Account account : byUsername.values()) {
+      if (taken.contains(account.username)) {
+        result.skipped.add(account.username);
+        continue;
+      }
+      account.id = null; // never overwrite an existing account
+      toHash.add(account);
+      passwords.add(account.password);
+    }
+    List<String> hashes = passwordHasher.encodeAll(passwords);
+    for (int i = 0; i < toHash.size(); ++i) {
+      toHash.get(i).password = hashes.get(i);
+    }
+    result.created = transactionTemplate.execute(status -> {
+      // user names may have been taken while the passwords were hashed
+      Set<String> takenSince = new HashSet<>(accountRepository.findTakenUsernames(
+          toHash.stream().map(account -> account.username).toList()));
+      List<Account> toCreate = new ArrayList<>(toHash.size());
+      for (Account account : toHash) {
+        if (takenSince.contains(account.username)) {
+          result.skipped.add(account.username);
+        } else {
+          toCreate.add(account);
+        }
+      }
+      return accountRepository.saveAll(toCreate).size();
+    });
+    return result;
   }
 
   /**
@@ -63,15 +158,19 @@ public class AccountService {
    * @return The login response object created upon successful login
    */
   public LoginResponse login(LoginInfo credentials) {
-    // hash password
-    int passwordHash = credentials.password.hashCode();
-    credentials.password = Integer.toString(passwordHash);
-    Account account = accountRepository
-                      .findByUsernameAndPassword(credentials.username,
-                                                 credentials.password)
-                      .orElseThrow();
+    Account account = accountRepository.findByUsername(credentials.username)
+                                       .orElseThrow();
+    if (!passwordHasher.matches(credentials.password, account.password)) {
+      throw new NoSuchElementException();
+    }
+    // replace a hash from before PBKDF2, or with fewer iterations, now that
+    // the password is known
+    if (passwordHasher.needsRehash(account.password)) {
+      account.password = passwordHasher.encode(credentials.password);
+      account = accountRepository.save(account);
+    }
     UUID token = UUID.randomUUID();
-    hashMap.put(token, account);
+    sessionStore.put(token, account);
     LoginResponse response = new LoginResponse();
     response.username = account.username;
     response.isAdmin = account.isAdmin;
@@ -86,7 +185,7 @@ public class AccountService {
    * @param token: The login token of the user
    */
   public void logout(UUID token) {
-    hashMap.remove(token);
+    sessionStore.remove(token);
   }
 
   /**
@@ -97,7 +196,7 @@ public class AccountService {
    * @throws Exception: Thrown if the account is not found
    */
   public Account getAccount(UUID token) throws Exception {
-    Account account = hashMap.get(token);
+    Account account = sessionStore.get(token);
     if (account == null) {
       throw new Exception();
     }
@@ -114,27 +213,33 @@ public class AccountService {
    *                    required fields were entered
    */
   public void updateAccount(UUID token, Account account) throws Exception {
-    accountRepository.findById(account.id).orElseThrow();
+    Account existingAccount = accountRepository.findById(account.id).orElseThrow();
     // ensure account owner or admin account is updating
-    Account tokenedAccount = hashMap.get(token);
+    Account tokenedAccount = sessionStore.get(token);
     if (tokenedAccount == null || (!account.id.equals(tokenedAccount.id)
         && !tokenedAccount.isAdmin)) {
       throw new Exception();
     }
-    // ensure updated user name isn't already taken
-    Iterable<Account> existingAccounts = accountRepository.findAll();
-    for (Account existingAccount : existingAccounts) {
-      if (existingAccount.username.equals(account.username)) {
-        throw new IllegalStateException();
-      }
+    // ensure updated user name isn't already taken by another account
+    if (accountRepository.existsByUsernameAndIdNot(account.username, account.id)) {
+      throw new IllegalStateException();
     }
     // ensure all required fields entered
     if (account.username.equals("") || account.password.equals("")) {
       throw new IllegalArgumentException();
     }
-    Account updatedAccount = accountRepository.save(account);
-    hashMap.remove(token);
-    hashMap.put(token, updatedAccount);
+    // the stored hash comes back unchanged unless the password was changed
+    if (!account.password.equals(existingAccount.password)) {
+      account.password = passwordHasher.encode(account.password);
+    }
+    Account updatedAccount;
+    try {
+      updatedAccount = accountRepository.save(account);
+    } catch (DataIntegrityViolationException e) {
+      // user name was taken since it was checked
+      throw new IllegalStateException();
+    }
+    sessionStore.replace(token, updatedAccount);
   }
 
   /**
@@ -146,7 +251,7 @@ public class AccountService {
    *                    authorized to deleted the account
    */
   public void deleteAccount(UUID token, Account account) throws Exception {
-    Account tokenedAccount = hashMap.get(token);
+    Account tokenedAccount = sessionStore.get(token);
     if (tokenedAccount == null) {
       throw new Exception();
     }
@@ -0,0 +1,171 @@
+package com.learninglabyrinth.backend.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.learninglabyrinth.backend.dto.AttemptJobStatus;
+import com.learninglabyrinth.backend.models.AttemptJobStateEnum;
+import com.learninglabyrinth.backend.models.MazeAttempt;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs maze attempts in the background so request threads are not held while
+ * user code compiles and runs. Each submission gets a job id that the client
+ * polls or subscribes to for the resulting MazeAttempt.
+ */
+@Service
+public class AttemptJobService {
+  private final MazeAttemptService mazeAttemptService;
+  private final ThreadPoolExecutor executor;
+  private final Map<UUID, AttemptJob> jobs;
+  private final Duration retention;
+
+  /**
+   * Constructor. Creates the bounded executor the attempts run on and
+   * registers its queue with the actuator.
+   *
+   * @param mazeAttemptService: The service that runs the attempts
+   * @param registry:           The actuator's meter registry
+   * @param threads:            Attempts that may run at the same time
+   * @param queueCapacity:      Attempts that may wait before submissions are
+   *                            rejected
+   * @param retentionSeconds:   How long finished jobs can still be fetched
+   */
+  public AttemptJobService(MazeAttemptService mazeAttemptService,
+      MeterRegistry registry,
+      @Value("${labyrinth.attempt.async.threads:4}") int threads,
+      @Value("${labyrinth.attempt.async.queue-capacity:100}") int queueCapacity,
+      @Value("${labyrinth.attempt.async.retention-seconds:600}") long retentionSeconds) {
+    this.mazeAttemptService = mazeAttemptService;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity));
+    this.jobs = new ConcurrentHashMap<>();
+    this.retention = Duration.ofSeconds(retentionSeconds);
+    Gauge.builder("labyrinth.attempt.async.queued", executor, pool -> pool.getQueue().size())
+        .register(registry);
+    Gauge.builder("labyrinth.attempt.async.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+  }
+
+  /**
+   * Queues a maze attempt.
+   *
+   * @param token:       The login token of the user
+   * @param mazeId:      The id of the maze to attempt
+   * @param userCode:    The user's code
+   * @param isActualRun: False for a test run that is not saved
+   * @return The id of the queued job
+   * @throws RejectedExecutionException: Thrown if the queue is full
+   */
+  public UUID submit(UUID token, Long mazeId, String userCode, boolean isActualRun) {
+    AttemptJob job = new AttemptJob();
+    UUID jobId = UUID.randomUUID();
+    jobs.put(jobId, job);
+    try {
+      executor.execute(() -> {
+        job.status = AttemptJobStateEnum.RUNNING;
+        // the future is completed before the status is published, so a job
+        // is never seen DONE without its attempt
+        try {
+          MazeAttempt attempt = mazeAttemptService.createMazeAttempt(
+              token, mazeId, userCode, isActualRun);
+          job.finishedAt = Instant.now();
+          job.result.complete(attempt);
+          job.status = AttemptJobStateEnum.DONE;
+        } catch (Throwable e) {
+          // errors too, or the job would never finish nor expire
+          job.finishedAt = Instant.now();
+          job.result.completeExceptionally(e);
+          job.status = AttemptJobStateEnum.FAILED;
+          if (e instanceof Error) {
+            throw (Error) e;
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      jobs.remove(jobId);
+      throw e;
+    }
+    return jobId;
+  }
+
+  /**
+   * @param jobId: The id returned by submit()
+   * @return The job's current status, or null if there is no such job
+   */
+  public AttemptJobStatus getStatus(UUID jobId) {
+    AttemptJob job = jobs.get(jobId);
+    if (job == null) {
+      return null;
+    }
+    AttemptJobStatus status = new AttemptJobStatus();
+    status.jobId = jobId;
+    status.status = job.status;
+    // a finished future wins over the status, which is published just after
+    // it and not yet when the future's own callbacks ask
+    if (job.result.isCompletedExceptionally()) {
+      status.status = AttemptJobStateEnum.FAILED;
+      try {
+        job.result.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        status.error = cause.getMessage() != null
+            ? cause.getMessage() : cause.getClass().getSimpleName();
+      }
+    } else if (job.result.isDone()) {
+      status.status = AttemptJobStateEnum.DONE;
+      status.attempt = job.result.getNow(null);
+    }
+    return status;
+  }
+
+  /**
+   * @param jobId: The id returned by submit()
+   * @return A future completed with the attempt when the job finishes, or
+   *         null if there is no such job
+   */
+  public CompletableFuture<MazeAttempt> getResult(UUID jobId) {
+    AttemptJob job = jobs.get(jobId);
+    return job == null ? null : job.result;
+  }
+
+  /**
+   * Forgets jobs that finished longer ago than the retention period.
+   */
+  @Scheduled(fixedDelay = 60000)
+  public void removeExpiredJobs() {
+    Instant cutoff = Instant.now().minus(retention);
+    jobs.values().removeIf(job -> job.finishedAt != null
+        && job.finishedAt.isBefore(cutoff));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * A submitted attempt and its progress.
+   */
+  private static class AttemptJob {
+    final CompletableFuture<MazeAttempt> result = new CompletableFuture<>();
+    volatile AttemptJobStateEnum status = AttemptJobStateEnum.QUEUED;
+    volatile Instant finishedAt;
+  }
+}
@@ -0,0 +1,111 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long each stage of a maze attempt took and how attempts ended.
+ * Stage times are collected while the attempt runs and recorded once its
+ * outcome is known, so every timer can be tagged with the maze size and the
+ * outcome.
+ */
+@Component
+public class AttemptMetrics {
+  /**
+   * The stages of createMazeAttempt(), in the order they run. Test runs and
+   * cached results skip some of them.
+   */
+  public enum Stage {
+    MAZE_LOOKUP,    // loading the parsed maze
+    RESULT_CACHE,   // looking for an identical earlier run
+    SCHEDULER_WAIT, // waiting for the account's turn and a free slot
+    WORKER_WAIT,    // waiting for an idle executor worker
+    SPAWN,          // starting an executor process for this attempt
+    COMPILE,        // compiling, or defining cached byte code
+    EXECUTE,        // running the user's maze algorithm
+    RESULT_READ,    // reading the movements back from the executor
+    POPULARITY,     // counting the maze use
+    PERSIST,        // saving the attempt
+    LEADERBOARD     // updating the maze's leaderboard
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private final MeterRegistry registry;
+
+  public AttemptMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Records a finished attempt.
+   *
+   * @param timings:     The stage times collected during the attempt
+   * @param mazeSize:    The width of the maze
+   * @param outcome:     How the attempt ended
+   * @param isActualRun: True for a saved run, false for a test run
+   * @param isCached:    True if the result of an earlier run was reused
+   */
+  public void record(Timings timings,
+                     int mazeSize,
+                     AttemptOutcomeEnum outcome,
+                     boolean isActualRun,
+                     boolean isCached) {
+    String size = Integer.toString(mazeSize);
+    for (Stage stage : STAGES) {
+      if (timings.recorded[stage.ordinal()]) {
+        Timer.builder("labyrinth.attempt.stage")
+            .tag("stage", stage.name().toLowerCase())
+            .tag("size", size)
+            .tag("outcome", outcome.name())
+            .register(registry)
+            .record(timings.nanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+      }
+    }
+    Counter.builder("labyrinth.attempts")
+        .tag("size", size)
+        .tag("outcome", outcome.name())
+        .tag("run", isActualRun ? "actual" : "test")
+        .tag("cached", Boolean.toString(isCached))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * The time spent in each stage of one attempt. Only used by the thread
+   * running the attempt.
+   */
+  public static class Timings {
+    private final long[] nanos = new long[STAGES.length];
+    private final boolean[] recorded = new boolean[STAGES.length];
+
+    /**
+     * @param stage: The stage that took the time
+     * @param nanos: How long it took
+     */
+    public void add(Stage stage, long nanos) {
+      this.nanos[stage.ordinal()] += nanos;
+      this.recorded[stage.ordinal()] = true;
+    }
+
+    /**
+     * Ends a stage that started at the given time.
+     *
+     * @param stage: The stage that just ended
+     * @param start: System.nanoTime() when the stage started
+     * @return System.nanoTime() now, the start of the next stage
+     */
+    public long lap(Stage stage, long start) {
+      long now = System.nanoTime();
+      add(stage, now - start);
+      return now;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.List;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+/**
+ * How running the user's code on a maze ended and the moves it made.
+ */
+public class AttemptResult {
+  public final AttemptOutcomeEnum outcome;
+  public final List<MovementEnum> movements; // ends in SUCCESS or FAILURE
+
+  public AttemptResult(AttemptOutcomeEnum outcome, List<MovementEnum> movements) {
+    this.outcome = outcome;
+    this.movements = movements;
+  }
+}
@@ -0,0 +1,102 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.cache.ContentHash;
+import com.learninglabyrinth.backend.cache.WeightedLruCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Results of earlier attempts, keyed by maze, the maze's version (a hash of
+ * its layout) and a hash of the user's code. The robot is deterministic, so running the
+ * same code on the same layout again would produce the same movements.
+ * Bounded by the total number of cached movements.
+ */
+@Component
+public class AttemptResultCache {
+  private final WeightedLruCache<Key, AttemptResult> cache;
+
+  /**
+   * Constructor. Registers the cache's metrics with the actuator.
+   *
+   * @param registry: The actuator's meter registry
+   * @param maxMoves: The total number of movements the cache may hold
+   */
+  public AttemptResultCache(MeterRegistry registry,
+      @Value("${labyrinth.attempt.result-cache.max-moves:1000000}") long maxMoves) {
+    this.cache = new WeightedLruCache<>(maxMoves, result -> result.movements.size());
+    FunctionCounter.builder("labyrinth.attempt.result.cache.gets", cache, WeightedLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.attempt.result.cache.gets", cache, WeightedLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.attempt.result.cache.evictions", cache, WeightedLruCache::evictionCount)
+        .register(registry);
+  }
+
+  /**
+   * @param maze:     The maze that was attempted
+   * @param userCode: The user's code
+   * @return The result of running the code on the maze, or null if not cached
+   */
+  public AttemptResult get(ParsedMaze maze, String userCode) {
+    return cache.get(new Key(maze, userCode));
+  }
+
+  /**
+   * @param maze:     The maze that was attempted
+   * @param userCode: The user's code
+   * @param result:   The result of running the code on the maze
+   */
+  public void put(ParsedMaze maze, String userCode, AttemptResult result) {
+    cache.put(new Key(maze, userCode),
+        new AttemptResult(result.outcome, List.copyOf(result.movements)));
+  }
+
+  /**
+   * Drops every result for a maze whose layout changed or was deleted.
+   *
+   * @param mazeId: The id of the maze
+   */
+  public void invalidate(long mazeId) {
+    cache.invalidateIf((key, result) -> key.mazeId == mazeId);
+  }
+
+  /**
+   * Cache key made of the maze id and version and a content hash of the code.
+   */
+  private static class Key {
+    private final long mazeId;
+    private final String layoutHash;
+    private final String codeHash;
+
+    Key(ParsedMaze maze, String userCode) {
+      this.mazeId = maze.id;
+      this.layoutHash = maze.version;
+      this.codeHash = ContentHash.sha256(userCode);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return mazeId == key.mazeId
+          && layoutHash.equals(key.layoutHash)
+          && codeHash.equals(key.codeHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mazeId, layoutHash, codeHash);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limits how many attempts run user code at the same time. Waiting attempts
+ * are queued per account and accounts take turns, so one user submitting
+ * many runs cannot starve everyone else. Actual runs are always started
+ * before test runs.
+ */
+@Component
+public class AttemptScheduler {
+  private final int maxConcurrent;
+  private final ReentrantLock lock;
+  // per-account queues in turn order, the account served next comes first
+  private final LinkedHashMap<Long, ArrayDeque<Ticket>> waitingActualRuns;
+  private final LinkedHashMap<Long, ArrayDeque<Ticket>> waitingTestRuns;
+  private int running;
+  private int waiting;
+
+  /**
+   * Constructor. Registers the number of running and waiting attempts with
+   * the actuator.
+   *
+   * @param registry:      The actuator's meter registry
+   * @param maxConcurrent: Attempts that may run user code at the same time,
+   *                       by default the number of executor workers
+   */
+  public AttemptScheduler(MeterRegistry registry,
+      @Value("${labyrinth.attempt.scheduler.max-concurrent:${labyrinth.executor.pool.size:4}}") int maxConcurrent) {
+    this.maxConcurrent = maxConcurrent;
+    this.lock = new ReentrantLock();
+    this.waitingActualRuns = new LinkedHashMap<>();
+    this.waitingTestRuns = new LinkedHashMap<>();
+    Gauge.builder("labyrinth.attempt.scheduler.running", this, AttemptScheduler::getRunning)
+        .register(registry);
+    Gauge.builder("labyrinth.attempt.scheduler.waiting", this, AttemptScheduler::getWaiting)
+        .register(registry);
+  }
+
+  /**
+   * Waits for this account's turn and a free slot, then runs the task.
+   *
+   * @param accountId:   The account the attempt belongs to
+   * @param isActualRun: True for a saved run, false for a test run
+   * @param task:        The work that needs a slot
+   * @return The task's result
+   * @throws IllegalStateException: Thrown if interrupted while waiting
+   */
+  public <T> T run(long accountId, boolean isActualRun, Supplier<T> task) {
+    acquire(accountId, isActualRun);
+    try {
+      return task.get();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * @return The number of attempts currently running
+   */
+  public int getRunning() {
+    lock.lock();
+    try {
+      return running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return The number of attempts waiting for a slot
+   */
+  public int getWaiting() {
+    lock.lock();
+    try {
+      return waiting;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void acquire(long accountId, boolean isActualRun) {
+    lock.lock();
+    try {
+      if (running < maxConcurrent && waiting == 0) {
+        ++running;
+        return;
+      }
+      Ticket ticket = new Ticket(lock.newCondition());
+      LinkedHashMap<Long, ArrayDeque<Ticket>> queues =
+          isActualRun ? waitingActualRuns : waitingTestRuns;
+      queues.computeIfAbsent(accountId, id -> new ArrayDeque<>()).addLast(ticket);
+      ++waiting;
+      try {
+        while (!ticket.granted) {
+          ticket.condition.await();
+        }
+      } catch (InterruptedException e) {
+        if (ticket.granted) {
+          // the slot was handed over as we were interrupted, pass it on
+          --running;
+          grantNext();
+        } else {
+          ArrayDeque<Ticket> queue = queues.get(accountId);
+          queue.remove(ticket);
+          if (queue.isEmpty()) {
+            queues.remove(accountId);
+          }
+          --waiting;
+        }
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting to run", e);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release() {
+    lock.lock();
+    try {
+      --running;
+      grantNext();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Hands free slots to waiting attempts, actual runs first. Must be called
+   * while holding the lock.
+   */
+  private void grantNext() {
+    while (running < maxConcurrent) {
+      Ticket next = pollNextAccount(waitingActualRuns);
+      if (next == null) {
+        next = pollNextAccount(waitingTestRuns);
+      }
+      if (next == null) {
+        return;
+      }
+      ++running;
+      --waiting;
+      next.granted = true;
+      next.condition.signal();
+    }
+  }
+
+  /**
+   * Takes the oldest ticket of the account whose turn it is and moves that
+   * account to the back of the turn order.
+   *
+   * @param queues: Per-account queues in turn order
+   * @return The ticket, or null if nothing is waiting
+   */
+  private static Ticket pollNextAccount(LinkedHashMap<Long, ArrayDeque<Ticket>> queues) {
+    Iterator<Map.Entry<Long, ArrayDeque<Ticket>>> accounts = queues.entrySet().iterator();
+    if (!accounts.hasNext()) {
+      return null;
+    }
+    Map.Entry<Long, ArrayDeque<Ticket>> account = accounts.next();
+    accounts.remove();
+    Ticket ticket = account.getValue().pollFirst();
+    if (!account.getValue().isEmpty()) {
+      queues.put(account.getKey(), account.getValue());
+    }
+    return ticket;
+  }
+
+  /**
+   * A waiting attempt.
+   */
+  private static class Ticket {
+    final Condition condition;
+    boolean granted;
+
+    Ticket(Condition condition) {
+      this.condition = condition;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.learninglabyrinth.backend.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.learninglabyrinth.backend.models.LeaderboardEntry;
+import com.learninglabyrinth.backend.repositories.LeaderboardRepository;
+import com.learninglabyrinth.backend.repositories.MazeAttemptRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps, for every maze, each account's best successful actual run sorted by
+ * score. Scores are updated as attempts are saved and persisted as
+ * LeaderboardEntry rows, which are read back when a maze's leaderboard is
+ * first used after a restart. Queries never touch the attempts table.
+ */
+@Service
+public class LeaderboardService {
+  private static final Logger LOG = LoggerFactory.getLogger(LeaderboardService.class);
+
+  // fewest moves first, ties go to whoever reached the score first
+  private static final Comparator<LeaderboardEntry> BY_SCORE =
+      Comparator.<LeaderboardEntry>comparingInt(entry -> entry.numMoves)
+                .thenComparing(entry -> entry.date)
+                .thenComparingLong(entry -> entry.accountId);
+
+  private final LeaderboardRepository leaderboardRepository;
+  private final MazeAttemptRepository mazeAttemptRepository;
+  private final ConcurrentHashMap<Long, MazeLeaderboard> leaderboards;
+
+  public LeaderboardService(LeaderboardRepository leaderboardRepository,
+                            MazeAttemptRepository mazeAttemptRepository) {
+    this.leaderboardRepository = leaderboardRepository;
+    this.mazeAttemptRepository = mazeAttemptRepository;
+    this.leaderboards = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Fills the leaderboard table from the attempts the first time the
+   * application starts with it, so existing scores are not lost.
+   */
+  @PostConstruct
+  public void backfill() {
+    if (leaderboardRepository.count() > 0) {
+      return;
+    }
+    List<LeaderboardEntry> entries = new ArrayList<>();
+    for (Object[] best : mazeAttemptRepository.findBestSuccessPerMazeAndAccount()) {
+      LeaderboardEntry entry = new LeaderboardEntry();
+      entry.mazeId = (Long) best[0];
+      entry.accountId = (Long) best[1];
+      entry.numMoves = (Integer) best[2];
+      entry.date = (LocalDateTime) best[3];
+      entries.add(entry);
+    }
+    leaderboardRepository.saveAll(entries);
+  }
+
+  /**
+   * Records a successful actual run, keeping it only if it beats the
+   * account's best score on the maze. The new score is saved before the
+   * leaderboard is changed, so if saving fails it is logged and the
+   * leaderboard keeps the old score rather than one the table does not have.
+   *
+   * @param mazeId:    The maze that was solved
+   * @param accountId: The account that solved it
+   * @param numMoves:  The number of moves the solution took
+   * @param date:      When the attempt was made
+   */
+  public void recordSuccess(long mazeId, long accountId, int numMoves, LocalDateTime date) {
+    MazeLeaderboard leaderboard = getLeaderboard(mazeId);
+    synchronized (leaderboard) {
+      LeaderboardEntry entry = leaderboard.byAccount.get(accountId);
+      if (entry != null && entry.numMoves <= numMoves) {
+        return;
+      }
+      // the entry in the leaderboard is left alone until the save succeeds,
+      // changing it would also break its place in byScore
+      LeaderboardEntry updated = new LeaderboardEntry();
+      updated.id = entry == null ? null : entry.id;
+      updated.mazeId = mazeId;
+      updated.accountId = accountId;
+      updated.numMoves = numMoves;
+      updated.date = date;
+      try {
+        updated = leaderboardRepository.save(updated);
+      } catch (RuntimeException e) {
+        LOG.error("Could not save the score of account {} on maze {}", accountId, mazeId, e);
+        return;
+      }
+      if (entry != null) {
+        leaderboard.byScore.remove(entry);
+      }
+      leaderboard.byScore.add(updated);
+      leaderboard.byAccount.put(accountId, updated);
+    }
+  }
+
+  /**
+   * @param mazeId: The maze
+   * @param limit:  The most entries to return
+   * @return Copies of the best scores on the maze, best first, in
+   *         O(log n + limit)
+   */
+  public List<LeaderboardEntry> getTop(long mazeId, int limit) {
+    MazeLeaderboard leaderboard = getLeaderboard(mazeId);
+    List<LeaderboardEntry> top = new ArrayList<>(limit);
+    synchronized (leaderboard) {
+      Iterator<LeaderboardEntry> entries = leaderboard.byScore.iterator();
+      while (top.size() < limit && entries.hasNext()) {
+        top.add(copy(entries.next()));
+      }
+    }
+    return top;
+  }
+
+  /**
+   * Drops the leaderboard of a deleted maze. Must be called within the
+   * transaction that deletes the maze.
+   *
+   * @param mazeId: The id of the maze
+   */
+  public void deleteLeaderboard(long mazeId) {
+    leaderboardRepository.deleteAllByMazeId(mazeId);
+    leaderboards.remove(mazeId);
+  }
+
+  private static LeaderboardEntry copy(LeaderboardEntry entry) {
+    LeaderboardEntry copy = new LeaderboardEntry();
+    copy.id = entry.id;
+    copy.mazeId = entry.mazeId;
+    copy.accountId = entry.accountId;
+    copy.numMoves = entry.numMoves;
+    copy.date = entry.date;
+    return copy;
+  }
+
+  private MazeLeaderboard getLeaderboard(long mazeId) {
+    MazeLeaderboard leaderboard = leaderboards.get(mazeId);
+    if (leaderboard == null) {
+      // load outside computeIfAbsent so the query does not block other mazes,
+      // if another thread got there first its copy wins
+      leaderboard = new MazeLeaderboard(leaderboardRepository.findAllByMazeId(mazeId));
+      MazeLeaderboard existing = leaderboards.putIfAbsent(mazeId, leaderboard);
+      if (existing != null) {
+        leaderboard = existing;
+      }
+    }
+    return leaderboard;
+  }
+
+  /**
+   * One maze's scores, sorted for the top of the leaderboard and indexed by
+   * account for updates. Guarded by its own monitor.
+   */
+  private static class MazeLeaderboard {
+    final TreeSet<LeaderboardEntry> byScore;
+    final Map<Long, LeaderboardEntry> byAccount;
+
+    MazeLeaderboard(List<LeaderboardEntry> entries) {
+      this.byScore = new TreeSet<>(BY_SCORE);
+      this.byAccount = new HashMap<>();
+      for (LeaderboardEntry entry : entries) {
+        byScore.add(entry);
+        byAccount.put(entry.accountId, entry);
+      }
+    }
+  }
+}
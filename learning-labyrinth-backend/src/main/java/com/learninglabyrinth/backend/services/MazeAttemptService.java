@@ -1,30 +1,108 @@
 package com.learninglabyrinth.backend.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learninglabyrinth.backend.dto.AttemptResourceUsage;
+import com.learninglabyrinth.backend.dto.MazeAttemptCost;
+import com.learninglabyrinth.backend.dto.MazeAttemptFilter;
+import com.learninglabyrinth.backend.dto.MazeAttemptPage;
+import com.learninglabyrinth.backend.dto.MazeAttemptReplay;
+import com.learninglabyrinth.backend.dto.MazeAttemptSummary;
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
 import com.learninglabyrinth.backend.models.MazeAttempt;
-import com.learninglabyrinth.backend.models.MazeLayout;
 import com.learninglabyrinth.backend.repositories.MazeAttemptRepository;
 import com.learninglabyrinth.backend.robot.MovementEnum;
-import com.learninglabyrinth.backend.runner.UserCodeProcess;
+import com.learninglabyrinth.backend.runner.JobStats;
+import com.learninglabyrinth.backend.runner.UserCodeWorkerPool;
+import com.learninglabyrinth.backend.runner.WorkerResult;
+import com.learninglabyrinth.backend.services.AttemptMetrics.Stage;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class MazeAttemptService {
   public MazeAttemptRepository mazeAttemptRepository;
   @Autowired
-  AccountService accountService;
+  SessionStore sessionStore;
   @Autowired
   MazeService mazeService;
+  @Autowired
+  UserCodeWorkerPool userCodeWorkerPool;
+  @Autowired
+  AttemptResultCache attemptResultCache;
+  @Autowired
+  AttemptScheduler attemptScheduler;
+  @Autowired
+  ObjectMapper objectMapper;
+  @Autowired
+  LeaderboardService leaderboardService;
+  @Autowired
+  MazePopularityService mazePopularityService;
+  @Autowired
+  AttemptMetrics attemptMetrics;
+  @PersistenceContext
+  EntityManager entityManager;
+
+  // attempts read per query when exporting
+  private static final int EXPORT_BATCH_SIZE = 500;
 
   public MazeAttemptService(MazeAttemptRepository mazeAttemptRepository) {
     this.mazeAttemptRepository = mazeAttemptRepository;
   }
 
-  public List<MazeAttempt> getMazeAttempts() {
-    return mazeAttemptRepository.findAll();
+  /**
+   * Lists attempts matching the filter in id order, one page at a time.
+   * 
+   * @param filter: Conditions the attempts must meet
+   * @param after:  The nextCursor of the previous page, or null for the first
+   * @param limit:  The most attempts to return
+   * @return The page and the cursor of the next one
+   */
+  public MazeAttemptPage getMazeAttempts(MazeAttemptFilter filter, Long after, int limit) {
+    MazeAttemptPage page = new MazeAttemptPage();
+    page.attempts = findPageAfter(filter, after == null ? 0 : after, limit);
+    if (page.attempts.size() == limit) {
+      page.nextCursor = page.attempts.get(limit - 1).id;
+    }
+    return page;
+  }
+
+  /**
+   * Writes every attempt matching the filter as newline delimited JSON. The
+   * attempts are read a batch at a time by id and detached once written, so
+   * memory use does not grow with the number of attempts even when open in
+   * view keeps one persistence context for the whole export.
+   * 
+   * @param filter: Conditions the attempts must meet
+   * @param out:    The stream to write to
+   * @throws IOException: Thrown if the stream cannot be written to
+   */
+  public void exportMazeAttempts(MazeAttemptFilter filter, OutputStream out) throws IOException {
+    long after = 0;
+    List<MazeAttempt> batch;
+    do {
+      batch = findPageAfter(filter, after, EXPORT_BATCH_SIZE);
+      for (MazeAttempt attempt : batch) {
+        out.write(objectMapper.writeValueAsBytes(attempt));
+        out.write('\n');
+        after = attempt.id;
+      }
+      out.flush();
+      entityManager.clear();
+    } while (batch.size() == EXPORT_BATCH_SIZE);
+  }
+
+  private List<MazeAttempt> findPageAfter(MazeAttemptFilter filter, long after, int limit) {
+    return mazeAttemptRepository.findPageAfter(after, filter.mazeId, filter.accountId,
+        filter.isSuccess, filter.from, filter.to, PageRequest.of(0, limit));
   }
 
   public MazeAttempt findMostRecent(long mazeId, long accountId) {
@@ -43,6 +121,62 @@ public class MazeAttemptService {
     }
   }
 
+  /**
+   * Same as findBest(), selecting only the attempt's score and date.
+   */
+  public Optional<MazeAttemptSummary> findBestSummary(long mazeId, long accountId) {
+    Optional<MazeAttemptSummary> best = mazeAttemptRepository
+        .findFirstByMazeIdAndAccountIdAndIsSuccessOrderByNumMovesAsc(mazeId, accountId, true,
+            MazeAttemptSummary.class);
+    return best.isPresent() ? best : findMostRecentSummary(mazeId, accountId);
+  }
+
+  /**
+   * Same as findMostRecent(), selecting only the attempt's score and date.
+   */
+  public Optional<MazeAttemptSummary> findMostRecentSummary(long mazeId, long accountId) {
+    return mazeAttemptRepository.findFirstByMazeIdAndAccountIdOrderByDateDesc(mazeId, accountId,
+        MazeAttemptSummary.class);
+  }
+
+  /**
+   * What the attempts on each maze cost the executor, most expensive first.
+   *
+   * @param accountId: Only count this account's attempts, or null for all
+   * @param limit:     The most mazes to return
+   */
+  public List<AttemptResourceUsage> getResourceUsageByMaze(Long accountId, int limit) {
+    return mazeAttemptRepository.findResourceUsageByMaze(accountId, PageRequest.of(0, limit));
+  }
+
+  /**
+   * What each account's attempts cost the executor, most expensive first.
+   *
+   * @param mazeId: Only count attempts on this maze, or null for all
+   * @param limit:  The most accounts to return
+   */
+  public List<AttemptResourceUsage> getResourceUsageByAccount(Long mazeId, int limit) {
+    return mazeAttemptRepository.findResourceUsageByAccount(mazeId, PageRequest.of(0, limit));
+  }
+
+  /**
+   * The attempts that cost the executor the most CPU time.
+   *
+   * @param mazeId:    Only attempts on this maze, or null for all
+   * @param accountId: Only this account's attempts, or null for all
+   * @param limit:     The most attempts to return
+   */
+  public List<MazeAttemptCost> getMostExpensive(Long mazeId, Long accountId, int limit) {
+    return mazeAttemptRepository.findMostExpensive(mazeId, accountId, PageRequest.of(0, limit));
+  }
+
+  /**
+   * Loads the code and movements of one of the account's attempts.
+   */
+  public Optional<MazeAttemptReplay> findReplay(long attemptId, long accountId) {
+    return mazeAttemptRepository.findByIdAndAccountId(attemptId, accountId, MazeAttemptReplay.class);
+  }
+
   /**
    * With the given MazeAttempt information, process the Java Text and record
    * the result back to the input MazeAttempt object.
@@ -53,79 +187,102 @@ public class MazeAttemptService {
       Long mazeId,
       String userCode,
       boolean isActualRun) {
+    AttemptResult result;
     List<MovementEnum> movements;
-    MazeLayout mazeLayout;
+    ParsedMaze maze;
     Long accountId;
     MazeAttempt attempt;
-    String listReturn;
-    MovementEnum lastMove;
+    AttemptMetrics.Timings timings = new AttemptMetrics.Timings();
+    long stageStart;
     // initialize variables necessary to conduct attempt
-    accountId = AccountService.hashMap.get(token).id;
+    accountId = Optional.ofNullable(sessionStore.get(token))
+        .orElseThrow(() -> new NoSuchElementException("No user is logged in with the token " + token)).id;
     attempt = new MazeAttempt(mazeId, accountId, userCode);
-    mazeLayout = mazeService.getMazeLayout(mazeId).orElseThrow();
-    // start process, parse return
-    UserCodeProcess userCodeProcess = new UserCodeProcess();
-    listReturn = userCodeProcess.startProcess(userCode, mazeLayout.layout);
-
-    movements = parseEnumList(listReturn);
-    // check last enumerator, set attempt result
-    lastMove = movements.get(movements.size() - 1);
-    attempt.setIsSuccess(lastMove == MovementEnum.SUCCESS);
-    // user made no moves or did not finish, append to get correct move count
-    if (lastMove != MovementEnum.SUCCESS && lastMove != MovementEnum.FAILURE) {
-      movements.add(MovementEnum.FAILURE);
+    stageStart = System.nanoTime();
+    maze = mazeService.getParsedMaze(mazeId)
+        .orElseThrow(() -> new NoSuchElementException("No maze with the id " + mazeId + " exists"));
+    stageStart = timings.lap(Stage.MAZE_LOOKUP, stageStart);
+    // reuse the result of an identical earlier run, otherwise run the code
+    result = attemptResultCache.get(maze, userCode);
+    stageStart = timings.lap(Stage.RESULT_CACHE, stageStart);
+    boolean isCached = result != null;
+    if (result == null) {
+      // wait for this account's turn and a free executor slot
+      long queuedAt = stageStart;
+      MazeAttempt running = attempt;
+      result = attemptScheduler.run(accountId, isActualRun, () -> {
+        timings.lap(Stage.SCHEDULER_WAIT, queuedAt);
+        return runUserCode(maze, userCode, timings, running);
+      });
     }
+    movements = new ArrayList<>(result.movements);
+    attempt.setOutcome(result.outcome);
+    attempt.setIsSuccess(result.outcome == AttemptOutcomeEnum.SUCCESS);
     attempt.setMovements(movements);
     attempt.setNumMoves(movements.size() - 1);
     // save maze attempt to repository if an actual run, do not save if test run
     if (isActualRun) {
-      manageMazePopularity(accountId, mazeLayout); // check for maze use update
-      return mazeAttemptRepository.save(attempt);
-    } else {
-      return attempt;
+      stageStart = System.nanoTime();
+      mazePopularityService.recordAttempt(accountId, mazeId); // check for maze use update
+      stageStart = timings.lap(Stage.POPULARITY, stageStart);
+      MazeAttempt saved = mazeAttemptRepository.save(attempt);
+      stageStart = timings.lap(Stage.PERSIST, stageStart);
+      if (saved.getIsSuccess()) {
+        leaderboardService.recordSuccess(mazeId, accountId, saved.getNumMoves(), saved.getDate());
+        timings.lap(Stage.LEADERBOARD, stageStart);
+      }
+      attempt = saved;
     }
+    attemptMetrics.record(timings, maze.size, result.outcome, isActualRun, isCached);
+    return attempt;
   }
 
   /**
-   * Parses the string representation of the MovementEnum list generated by the
-   * attempt.
+   * Runs the user's code against the maze and caches the result when running
+   * the same code again is guaranteed to give the same result.
    * 
-   * @param input: The string returned by the attempt process
-   * @return enumList: The list of MovementEnums restored to its original format
+   * @param maze:     The maze being attempted
+   * @param userCode: The user's code
+   * @param timings:  Where the time spent in the executor is added
+   * @param attempt:  The attempt the executor's resource use is recorded on
+   * @return The outcome and the movements made, always ending in SUCCESS or
+   *         FAILURE
    */
-  private static List<MovementEnum> parseEnumList(String input) {
-    // remove square brackets
-    String withoutBrackets;
-    if (input.length() < 3) { // if no moves made, input will have length < 3
-      withoutBrackets = "FAILURE";
-    } else {
-      withoutBrackets = input.substring(input.indexOf('[') + 1,
-          input.indexOf(']'));
+  private AttemptResult runUserCode(ParsedMaze maze, String userCode,
+      AttemptMetrics.Timings timings, MazeAttempt attempt) {
+    WorkerResult workerResult;
+    List<MovementEnum> movements;
+    AttemptOutcomeEnum outcome;
+    // run in a warm executor worker
+    workerResult = userCodeWorkerPool.execute(userCode, maze.layout);
+    timings.add(Stage.WORKER_WAIT, workerResult.waitNanos);
+    if (workerResult.spawnNanos > 0) {
+      timings.add(Stage.SPAWN, workerResult.spawnNanos);
     }
-    // split using comma
-    String[] enumValues = withoutBrackets.split(",");
-    // trim and convert to enumerator
-    List<MovementEnum> enumList = new ArrayList<>();
-    for (String value : enumValues) {
-      MovementEnum enumConstant = MovementEnum.valueOf(value.trim());
-      enumList.add(enumConstant);
+    if (workerResult.stats != null) {
+      timings.add(Stage.COMPILE, workerResult.stats.compileNanos);
+      timings.add(Stage.EXECUTE, workerResult.stats.runNanos);
+      timings.add(Stage.RESULT_READ, workerResult.readNanos);
+      JobStats stats = workerResult.stats;
+      attempt.setResourceUsage(stats.compileNanos / 1000, stats.runNanos / 1000,
+          stats.cpuNanos / 1000, stats.allocatedBytes, stats.numScans, stats.numActions);
     }
-    return enumList;
-  }
-
-  /**
-   * Checks to see if there are no attempts with both the specified accountId
-   * and mazeId in the repository. If no such record exists, the maze has been
-   * attempted by a new user, and it's uses field is incremented.
-   * 
-   * @param accountId:  The account id of the user that made the attempt
-   * @param mazeLayout: The maze id of the maze that was attempted
-   */
-  private void manageMazePopularity(Long accountId, MazeLayout mazeLayout) {
-    if (!mazeAttemptRepository.existsByAccountIdAndMazeId(accountId,
-        mazeLayout.id)) {
-      mazeLayout.uses++;
-      mazeService.saveMazeLayout(mazeLayout);
+    movements = new ArrayList<>(workerResult.movements);
+    // user made no moves or did not finish, append to get correct move count
+    if (movements.isEmpty()
+        || (movements.get(movements.size() - 1) != MovementEnum.SUCCESS
+            && movements.get(movements.size() - 1) != MovementEnum.FAILURE)) {
+      movements.add(MovementEnum.FAILURE);
+    }
+    outcome = workerResult.outcome;
+    AttemptResult result = new AttemptResult(outcome, movements);
+    // do not cache runs cut short by load (timeouts) or by a crash, nor code
+    // whose byte code may behave differently next time
+    if (outcome == AttemptOutcomeEnum.COMPILE_ERROR
+        || (outcome != AttemptOutcomeEnum.TIMEOUT && outcome != AttemptOutcomeEnum.ERROR
+            && workerResult.deterministic)) {
+      attemptResultCache.put(maze, userCode, result);
     }
+    return result;
   }
 }
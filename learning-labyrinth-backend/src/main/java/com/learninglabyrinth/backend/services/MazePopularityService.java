@@ -0,0 +1,141 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.learninglabyrinth.backend.models.MazeLayout;
+import com.learninglabyrinth.backend.repositories.MazeAttemptRepository;
+import com.learninglabyrinth.backend.repositories.MazeRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Counts how many accounts have attempted each maze. New uses are counted in
+ * memory and added to the database in batches with an atomic update, so
+ * concurrent attempts never lose a use and an attempt costs no queries. The
+ * most popular mazes are cached between flushes and dropped whenever a maze
+ * is updated or deleted.
+ */
+@Service
+public class MazePopularityService {
+  private final MazeRepository mazeRepository;
+  private final MazeAttemptRepository mazeAttemptRepository;
+  // accounts known to have attempted each maze, loaded on first use
+  private final ConcurrentHashMap<Long, Set<Long>> accountsByMaze;
+  // uses not yet written to the database
+  private final ConcurrentHashMap<Long, Integer> pendingUses;
+  private volatile List<MazeLayout> popularMazes;
+  // bumped whenever the popular mazes are dropped, a load that overlaps one
+  // is not cached
+  private final AtomicLong invalidations;
+
+  public MazePopularityService(MazeRepository mazeRepository,
+                               MazeAttemptRepository mazeAttemptRepository) {
+    this.mazeRepository = mazeRepository;
+    this.mazeAttemptRepository = mazeAttemptRepository;
+    this.accountsByMaze = new ConcurrentHashMap<>();
+    this.pendingUses = new ConcurrentHashMap<>();
+    this.invalidations = new AtomicLong();
+  }
+
+  /**
+   * Counts a use of the maze if the account has not attempted it before.
+   * Must be called before the attempt is saved.
+   *
+   * @param accountId: The account id of the user that made the attempt
+   * @param mazeId:    The maze id of the maze that was attempted
+   */
+  public void recordAttempt(long accountId, long mazeId) {
+    if (getAccounts(mazeId).add(accountId)) {
+      pendingUses.merge(mazeId, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * @return The three most popular mazes, as of the last flush
+   */
+  public List<MazeLayout> getPopularMazes() {
+    List<MazeLayout> popular = popularMazes;
+    if (popular == null) {
+      long invalidationsBeforeLoad = invalidations.get();
+      popular = mazeRepository.findTop3ByOrderByUsesDesc();
+      // a flush or maze update while loading may have been read before it
+      synchronized (invalidations) {
+        if (invalidations.get() == invalidationsBeforeLoad) {
+          popularMazes = popular;
+        }
+      }
+    }
+    return popular;
+  }
+
+  /**
+   * Writes the uses counted since the last flush and refreshes the popular
+   * mazes if any changed.
+   */
+  @Scheduled(fixedDelayString = "${labyrinth.maze.popularity.flush-ms:5000}")
+  @PreDestroy
+  public void flush() {
+    boolean changed = false;
+    for (Long mazeId : pendingUses.keySet()) {
+      // remove is atomic with merge, a use counted after it starts a new entry
+      Integer delta = pendingUses.remove(mazeId);
+      if (delta == null) {
+        continue;
+      }
+      try {
+        mazeRepository.addUses(mazeId, delta);
+        changed = true;
+      } catch (Exception e) {
+        // keep the uses for the next flush
+        e.printStackTrace();
+        pendingUses.merge(mazeId, delta, Integer::sum);
+      }
+    }
+    if (changed) {
+      invalidatePopularMazes();
+    }
+  }
+
+  /**
+   * Forgets a deleted maze.
+   *
+   * @param mazeId: The id of the maze
+   */
+  public void forgetMaze(long mazeId) {
+    accountsByMaze.remove(mazeId);
+    pendingUses.remove(mazeId);
+    invalidatePopularMazes();
+  }
+
+  /**
+   * Drops the cached popular mazes, which hold a copy of each maze's layout
+   * and must be reloaded when one changes.
+   */
+  public void invalidatePopularMazes() {
+    synchronized (invalidations) {
+      invalidations.incrementAndGet();
+      popularMazes = null;
+    }
+  }
+
+  private Set<Long> getAccounts(long mazeId) {
+    Set<Long> accounts = accountsByMaze.get(mazeId);
+    if (accounts == null) {
+      // load outside computeIfAbsent so the query does not block other mazes,
+      // if another thread got there first its copy wins
+      accounts = ConcurrentHashMap.newKeySet();
+      accounts.addAll(mazeAttemptRepository.findAccountIdsByMazeId(mazeId));
+      Set<Long> existing = accountsByMaze.putIfAbsent(mazeId, accounts);
+      if (existing != null) {
+        accounts = existing;
+      }
+    }
+    return accounts;
+  }
+}
@@ -18,14 +18,46 @@ public class MazeService {
     @Autowired
     public MazeAttemptRepository mazeAttemptRepository;
 
+    @Autowired
+    AttemptResultCache attemptResultCache;
+
+    @Autowired
+    ParsedMazeCache parsedMazeCache;
+
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @Autowired
+    MazePopularityService mazePopularityService;
+
     public MazeLayout saveMazeLayout(MazeLayout layout) {
         return mazeRepository.save(layout);
     }
 
+    /**
+     * Saves a maze whose layout may have changed, dropping any cached attempt
+     * results and popular mazes holding the old layout.
+     */
+    public MazeLayout updateMazeLayout(MazeLayout layout) {
+        MazeLayout updated = mazeRepository.save(layout);
+        parsedMazeCache.invalidate(layout.id);
+        attemptResultCache.invalidate(layout.id);
+        mazePopularityService.invalidatePopularMazes();
+        return updated;
+    }
+
     public Optional<MazeLayout> getMazeLayout(Long mazeID) {
         return mazeRepository.findById(mazeID);
     }
 
+    /**
+     * Retrieves a maze for running attempts on it, from the cache unless this
+     * is the first use since the maze was last changed.
+     */
+    public Optional<ParsedMaze> getParsedMaze(long mazeID) {
+        return parsedMazeCache.get(mazeID, () -> mazeRepository.findById(mazeID));
+    }
+
     public Iterable<MazeLayout> getMazes(){
         return mazeRepository.findAllByOrderBySizeAsc();
     }
@@ -33,6 +65,10 @@ public class MazeService {
     public void deleteMazeLayout(Long mazeID) {
         mazeRepository.deleteById(mazeID);
         mazeAttemptRepository.deleteAllByMazeId(mazeID);
+        leaderboardService.deleteLeaderboard(mazeID);
+        mazePopularityService.forgetMaze(mazeID);
+        parsedMazeCache.invalidate(mazeID);
+        attemptResultCache.invalidate(mazeID);
     }
 
     public boolean mazeExists(long mazeID) {
@@ -40,6 +76,6 @@ public class MazeService {
     }
 
     public List<MazeLayout> getPopularMazes() {
-        return mazeRepository.findTop3ByOrderByUsesDesc();
+        return mazePopularityService.getPopularMazes();
     }
 }
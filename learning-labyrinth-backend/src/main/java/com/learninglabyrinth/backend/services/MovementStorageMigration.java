@@ -0,0 +1,89 @@
+package com.learninglabyrinth.backend.services;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learninglabyrinth.backend.models.MovementListConverter;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+/**
+ * Moves movement histories saved before they were run-length encoded out of
+ * the old one-row-per-move "movements" table and into the movement_runs
+ * column of maze_attempt. Each attempt is copied and its old rows deleted in
+ * one transaction, so the migration can be interrupted and resumed, and the
+ * old table is dropped once it is empty.
+ */
+@Component
+public class MovementStorageMigration {
+  private static final Logger LOG = LoggerFactory.getLogger(MovementStorageMigration.class);
+  private static final String LEGACY_TABLE = "movements";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public MovementStorageMigration(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  /**
+   * Runs the migration once the application has started, if there is
+   * anything left to migrate.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrate() {
+    int migrated = 0;
+    try {
+      if (!legacyTableExists()) {
+        return;
+      }
+      List<Long> attemptIds = jdbcTemplate.queryForList(
+          "SELECT DISTINCT maze_attempt_id FROM " + LEGACY_TABLE, Long.class);
+      for (Long attemptId : attemptIds) {
+        transactionTemplate.executeWithoutResult(status -> migrateAttempt(attemptId));
+        ++migrated;
+      }
+      jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+      LOG.info("Migrated the movements of {} attempts and dropped the {} table",
+          migrated, LEGACY_TABLE);
+    } catch (Exception e) {
+      // attempts not yet migrated keep their old rows and are retried on the
+      // next start up
+      LOG.error("Movement migration stopped after {} attempts, the rest will be"
+          + " retried on the next start up", migrated, e);
+    }
+  }
+
+  private void migrateAttempt(long attemptId) {
+    // rows come back in insertion order through the foreign key index, which
+    // is the order the moves were made in
+    List<MovementEnum> movements = jdbcTemplate.query(
+        "SELECT movements FROM " + LEGACY_TABLE + " WHERE maze_attempt_id = ?",
+        (row, rowNum) -> MovementEnum.valueOf(row.getString(1)),
+        attemptId);
+    jdbcTemplate.update(
+        "UPDATE maze_attempt SET movement_runs = ? WHERE id = ? AND movement_runs IS NULL",
+        MovementListConverter.encode(movements), attemptId);
+    jdbcTemplate.update(
+        "DELETE FROM " + LEGACY_TABLE + " WHERE maze_attempt_id = ?", attemptId);
+  }
+
+  private boolean legacyTableExists() {
+    return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+      try (ResultSet tables = connection.getMetaData().getTables(
+          connection.getCatalog(), null, LEGACY_TABLE, new String[] {"TABLE"})) {
+        return tables.next();
+      }
+    }));
+  }
+}
@@ -0,0 +1,24 @@
+package com.learninglabyrinth.backend.services;
+
+import com.learninglabyrinth.backend.cache.ContentHash;
+import com.learninglabyrinth.backend.models.MazeLayout;
+
+/**
+ * Immutable snapshot of a maze taken when it was loaded. The version is a hash
+ * of the layout, so two snapshots with the same id and version describe the
+ * same maze. The layout is left as text: the executor parses it into the
+ * robot's grid, so parsing it here as well would be wasted.
+ */
+public class ParsedMaze {
+  public final long id;
+  public final String version; // SHA-256 of the layout
+  public final int size;
+  public final String layout;
+
+  public ParsedMaze(MazeLayout mazeLayout) {
+    this.id = mazeLayout.id;
+    this.version = ContentHash.sha256(mazeLayout.layout);
+    this.size = mazeLayout.size;
+    this.layout = mazeLayout.layout;
+  }
+}
@@ -0,0 +1,83 @@
+package com.learninglabyrinth.backend.services;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.cache.WeightedLruCache;
+import com.learninglabyrinth.backend.models.MazeLayout;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Maze snapshots keyed by maze id, so attempts on a maze skip both the
+ * database and hashing its layout. Entries are dropped when the maze is updated or
+ * deleted. Bounded by the total number of cells of the cached mazes.
+ */
+@Component
+public class ParsedMazeCache {
+  private final WeightedLruCache<Long, ParsedMaze> cache;
+  // bumped on every invalidation, a load that overlaps one is not cached
+  private final AtomicLong invalidations;
+
+  /**
+   * Constructor. Registers the cache's metrics with the actuator.
+   *
+   * @param registry: The actuator's meter registry
+   * @param maxCells: The total number of maze cells the cache may hold
+   */
+  public ParsedMazeCache(MeterRegistry registry,
+      @Value("${labyrinth.maze.cache.max-cells:1000000}") long maxCells) {
+    this.cache = new WeightedLruCache<>(maxCells, maze -> maze.layout.length());
+    this.invalidations = new AtomicLong();
+    FunctionCounter.builder("labyrinth.maze.cache.gets", cache, WeightedLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.maze.cache.gets", cache, WeightedLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.maze.cache.evictions", cache, WeightedLruCache::evictionCount)
+        .register(registry);
+  }
+
+  /**
+   * Returns the cached maze, loading it on first use.
+   *
+   * @param mazeId: The id of the maze
+   * @param loader: Loads the maze from the database
+   * @return The maze, or empty if it does not exist
+   */
+  public Optional<ParsedMaze> get(long mazeId, Supplier<Optional<MazeLayout>> loader) {
+    ParsedMaze maze = cache.get(mazeId);
+    if (maze != null) {
+      return Optional.of(maze);
+    }
+    long invalidationsBeforeLoad = invalidations.get();
+    Optional<ParsedMaze> loaded = loader.get().map(ParsedMaze::new);
+    // a maze updated while loading may have been read before the update
+    loaded.ifPresent(parsed -> {
+      synchronized (invalidations) {
+        if (invalidations.get() == invalidationsBeforeLoad) {
+          cache.put(mazeId, parsed);
+        }
+      }
+    });
+    return loaded;
+  }
+
+  /**
+   * Drops a maze whose layout changed or was deleted.
+   *
+   * @param mazeId: The id of the maze
+   */
+  public void invalidate(long mazeId) {
+    synchronized (invalidations) {
+      invalidations.incrementAndGet();
+      cache.invalidateIf((id, maze) -> id == mazeId);
+    }
+  }
+}
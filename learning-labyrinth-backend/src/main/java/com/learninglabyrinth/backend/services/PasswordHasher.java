@@ -0,0 +1,257 @@
+package com.learninglabyrinth.backend.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.cache.WeightedLruCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hashes passwords with PBKDF2 and checks them against stored hashes.
+ * Hashing runs on a small bounded pool, so a burst of logins queues for CPU
+ * instead of starving request threads, and is rejected once the queue is
+ * full. Recently verified passwords are remembered, so logging in again
+ * skips the key derivation.
+ *
+ * Stored hashes look like pbkdf2$iterations$salt$hash. Anything else is a
+ * hash from before PBKDF2 was used, which is the password's hashCode().
+ */
+@Component
+public class PasswordHasher {
+  private static final String PREFIX = "pbkdf2$";
+  private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+  private static final int SALT_BYTES = 16;
+  private static final int HASH_BITS = 256;
+
+  private final int iterations;
+  private final long timeoutMs;
+  private final ThreadPoolExecutor executor;
+  private final SecureRandom random;
+  // stored hash to a MAC of the password it was verified against, under a
+  // key that only lives as long as the process
+  private final WeightedLruCache<String, byte[]> verified;
+  private final SecretKeySpec cacheKey;
+  private final Timer encodeTimer;
+  private final Timer verifyTimer;
+  private final Counter rejected;
+
+  /**
+   * Constructor. Creates the hashing pool and registers its metrics with the
+   * actuator.
+   *
+   * @param registry:        The actuator's meter registry
+   * @param iterations:      PBKDF2 iterations for new hashes
+   * @param threads:         Passwords that may be hashed at the same time
+   * @param queueCapacity:   Passwords that may wait before logins are rejected
+   * @param timeoutMs:       The longest a login waits for its hash
+   * @param cacheMaxEntries: Verified passwords remembered
+   */
+  public PasswordHasher(MeterRegistry registry,
+      @Value("${labyrinth.password.iterations:310000}") int iterations,
+      @Value("${labyrinth.password.threads:2}") int threads,
+      @Value("${labyrinth.password.queue-capacity:200}") int queueCapacity,
+      @Value("${labyrinth.password.timeout-ms:10000}") long timeoutMs,
+      @Value("${labyrinth.password.login-cache.max-entries:10000}") long cacheMaxEntries) {
+    this.iterations = iterations;
+    this.timeoutMs = timeoutMs;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity));
+    this.random = new SecureRandom();
+    this.verified = new WeightedLruCache<>(cacheMaxEntries, mac -> 1);
+    byte[] key = new byte[32];
+    random.nextBytes(key);
+    this.cacheKey = new SecretKeySpec(key, "HmacSHA256");
+    this.encodeTimer = Timer.builder("labyrinth.password.hash").tag("operation", "encode")
+        .register(registry);
+    this.verifyTimer = Timer.builder("labyrinth.password.hash").tag("operation", "verify")
+        .register(registry);
+    this.rejected = Counter.builder("labyrinth.password.rejected").register(registry);
+    Gauge.builder("labyrinth.password.queued", executor, pool -> pool.getQueue().size())
+        .register(registry);
+    Gauge.builder("labyrinth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+    FunctionCounter.builder("labyrinth.password.login-cache.gets", verified, WeightedLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("labyrinth.password.login-cache.gets", verified, WeightedLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+  }
+
+  /**
+   * @param password: A password as entered by the user
+   * @return The hash to store
+   * @throws RejectedExecutionException: Thrown if too many passwords are
+   *                                     waiting to be hashed
+   */
+  public String encode(String password) {
+    return runBounded(encodeTimer, () -> encodeNow(password));
+  }
+
+  /**
+   * Hashes many passwords, such as those of an imported class. At most one
+   * password per hashing thread is queued at a time, so an import never
+   * fills the queue that logins wait in.
+   *
+   * @param passwords: Passwords as entered by the users
+   * @return The hashes to store, in the same order
+   * @throws RejectedExecutionException: Thrown if the pool is too busy to
+   *                                     take a chunk of the passwords
+   */
+  public List<String> encodeAll(List<String> passwords) {
+    int chunkSize = executor.getMaximumPoolSize();
+    List<String> hashes = new ArrayList<>(passwords.size());
+    for (int start = 0; start < passwords.size(); start += chunkSize) {
+      List<Future<String>> chunk = new ArrayList<>(chunkSize);
+      try {
+        for (String password : passwords.subList(start,
+            Math.min(start + chunkSize, passwords.size()))) {
+          chunk.add(submit(encodeTimer, () -> encodeNow(password)));
+        }
+        for (Future<String> hash : chunk) {
+          hashes.add(await(hash));
+        }
+      } finally {
+        // a rejected or failed chunk leaves nothing behind on the pool
+        for (Future<String> hash : chunk) {
+          hash.cancel(true);
+        }
+      }
+    }
+    return hashes;
+  }
+
+  /**
+   * @param password: A password as entered by the user
+   * @param stored:   The stored hash of the account's password
+   * @return True if the password is the account's password
+   * @throws RejectedExecutionException: Thrown if too many passwords are
+   *                                     waiting to be hashed
+   */
+  public boolean matches(String password, String stored) {
+    if (stored == null) {
+      return false;
+    }
+    if (!stored.startsWith(PREFIX)) {
+      return MessageDigest.isEqual(
+          Integer.toString(password.hashCode()).getBytes(StandardCharsets.UTF_8),
+          stored.getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] mac = mac(password);
+    byte[] remembered = verified.get(stored);
+    if (remembered != null && MessageDigest.isEqual(remembered, mac)) {
+      return true;
+    }
+    String[] parts = stored.split("\\$");
+    int storedIterations = Integer.parseInt(parts[1]);
+    byte[] salt = Base64.getDecoder().decode(parts[2]);
+    byte[] expected = Base64.getDecoder().decode(parts[3]);
+    byte[] actual = runBounded(verifyTimer, () -> pbkdf2(password, salt, storedIterations));
+    if (!MessageDigest.isEqual(expected, actual)) {
+      return false;
+    }
+    verified.put(stored, mac);
+    return true;
+  }
+
+  /**
+   * @param stored: The stored hash of an account's password
+   * @return True if the hash is in the old format or weaker than new hashes,
+   *         and should be replaced once the password is known
+   */
+  public boolean needsRehash(String stored) {
+    return !stored.startsWith(PREFIX)
+        || Integer.parseInt(stored.split("\\$")[1]) < iterations;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T runBounded(Timer timer, Callable<T> task) {
+    return await(submit(timer, task));
+  }
+
+  private <T> Future<T> submit(Timer timer, Callable<T> task) {
+    try {
+      return executor.submit(timer.wrap(task));
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw e;
+    }
+  }
+
+  private <T> T await(Future<T> future) {
+    try {
+      return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      rejected.increment();
+      throw new RejectedExecutionException("Timed out waiting to hash a password", e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private String encodeNow(String password) throws GeneralSecurityException {
+    byte[] salt = new byte[SALT_BYTES];
+    random.nextBytes(salt);
+    byte[] hash = pbkdf2(password, salt, iterations);
+    Base64.Encoder base64 = Base64.getEncoder();
+    return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+        + base64.encodeToString(hash);
+  }
+
+  private static byte[] pbkdf2(String password, byte[] salt, int iterations)
+      throws GeneralSecurityException {
+    PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+    try {
+      return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+    } finally {
+      spec.clearPassword();
+    }
+  }
+
+  private byte[] mac(String password) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(cacheKey);
+      return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      // every Java platform is required to support HmacSHA256
+      throw new IllegalStateException(e);
+    }
+  }
+}
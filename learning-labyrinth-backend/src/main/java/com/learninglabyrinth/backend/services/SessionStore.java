@@ -0,0 +1,279 @@
+package com.learninglabyrinth.backend.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.learninglabyrinth.backend.models.Account;
+import com.learninglabyrinth.backend.models.LoginSession;
+import com.learninglabyrinth.backend.repositories.AccountRepository;
+import com.learninglabyrinth.backend.repositories.LoginSessionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * The logged in users, keyed by login token. A session expires a fixed time
+ * after login or after going unused for a while, whichever comes first, and
+ * expired sessions are swept in the background. When full, logging in drops
+ * the least recently used session. Looking a token up never locks.
+ *
+ * Sessions are also saved to the database when persistence is enabled and
+ * loaded back on start up, so a restart does not log everyone out.
+ */
+@Component
+public class SessionStore {
+  // last use is only written when it moved by more than this, so busy
+  // sessions are not written to on every request
+  private static final long TOUCH_INTERVAL_MS = 1000;
+
+  private final ConcurrentHashMap<UUID, Session> sessions;
+  private final LoginSessionRepository loginSessionRepository;
+  private final AccountRepository accountRepository;
+  private final long ttlMs;
+  private final long idleMs;
+  private final int maxSessions;
+  private final boolean persist;
+  private final Counter created;
+  private final Counter expired;
+  private final Counter evicted;
+
+  /**
+   * Constructor. Registers the store's metrics with the actuator.
+   *
+   * @param loginSessionRepository: The repository sessions are persisted to
+   * @param accountRepository:      The repository accounts are loaded from
+   * @param registry:               The actuator's meter registry
+   * @param ttl:                    How long a session lasts after login
+   * @param idle:                   How long a session lasts unused
+   * @param maxSessions:            The most sessions held at once
+   * @param persist:                Whether sessions survive a restart
+   */
+  public SessionStore(LoginSessionRepository loginSessionRepository,
+                      AccountRepository accountRepository,
+                      MeterRegistry registry,
+                      @Value("${labyrinth.session.ttl-minutes:720}") long ttl,
+                      @Value("${labyrinth.session.idle-minutes:120}") long idle,
+                      @Value("${labyrinth.session.max-sessions:100000}") int maxSessions,
+                      @Value("${labyrinth.session.persist:true}") boolean persist) {
+    this.sessions = new ConcurrentHashMap<>();
+    this.loginSessionRepository = loginSessionRepository;
+    this.accountRepository = accountRepository;
+    this.ttlMs = Duration.ofMinutes(ttl).toMillis();
+    this.idleMs = Duration.ofMinutes(idle).toMillis();
+    this.maxSessions = maxSessions;
+    this.persist = persist;
+    this.created = Counter.builder("labyrinth.sessions.created").register(registry);
+    this.expired = Counter.builder("labyrinth.sessions.removed").tag("reason", "expired")
+        .register(registry);
+    this.evicted = Counter.builder("labyrinth.sessions.removed").tag("reason", "evicted")
+        .register(registry);
+    Gauge.builder("labyrinth.sessions.active", sessions, Map::size).register(registry);
+  }
+
+  /**
+   * Loads the sessions that were still valid when the application stopped.
+   */
+  @PostConstruct
+  public void load() {
+    if (!persist) {
+      return;
+    }
+    try {
+      loginSessionRepository.deleteAllByCreatedAtBefore(Instant.now().minusMillis(ttlMs));
+      List<LoginSession> saved = loginSessionRepository.findAll();
+      Map<Long, Account> accounts = new HashMap<>();
+      List<Long> accountIds = saved.stream().map(session -> session.accountId).distinct().toList();
+      for (Account account : accountRepository.findAllById(accountIds)) {
+        accounts.put(account.id, account);
+      }
+      long now = System.currentTimeMillis();
+      for (LoginSession session : saved) {
+        Account account = accounts.get(session.accountId);
+        if (account != null) {
+          sessions.put(session.token, new Session(account, session.createdAt.toEpochMilli(), now));
+        }
+      }
+    } catch (Exception e) {
+      // users whose sessions were not loaded log in again
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * @param token: The login token of the user
+   * @return The account of the logged in user, or null if the token is
+   *         unknown or its session expired
+   */
+  public Account get(UUID token) {
+    Session session = sessions.get(token);
+    if (session == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (session.isExpired(now, ttlMs, idleMs)) {
+      remove(token, session, expired);
+      return null;
+    }
+    if (now - session.lastUsed > TOUCH_INTERVAL_MS) {
+      session.lastUsed = now;
+    }
+    return session.account;
+  }
+
+  /**
+   * @param token: The login token of the user
+   * @return True if the token belongs to a session that has not expired
+   */
+  public boolean containsKey(UUID token) {
+    return get(token) != null;
+  }
+
+  /**
+   * Starts a session for an account that just logged in.
+   *
+   * @param token:   The new login token
+   * @param account: The account that logged in
+   */
+  public void put(UUID token, Account account) {
+    long now = System.currentTimeMillis();
+    if (sessions.size() >= maxSessions) {
+      removeExpired(now);
+      evictLeastRecentlyUsed();
+    }
+    sessions.put(token, new Session(account, now, now));
+    created.increment();
+    if (persist) {
+      try {
+        LoginSession saved = new LoginSession();
+        saved.token = token;
+        saved.accountId = account.id;
+        saved.createdAt = Instant.ofEpochMilli(now);
+        loginSessionRepository.save(saved);
+      } catch (Exception e) {
+        // the session still works until the next restart
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Swaps in the updated account of a logged in user, keeping the session's
+   * expiry.
+   *
+   * @param token:   The login token of the user
+   * @param account: The updated account
+   */
+  public void replace(UUID token, Account account) {
+    sessions.computeIfPresent(token, (key, session) ->
+        new Session(account, session.createdAt, session.lastUsed));
+  }
+
+  /**
+   * Ends a session.
+   *
+   * @param token: The login token of the user
+   */
+  public void remove(UUID token) {
+    Session session = sessions.remove(token);
+    if (session != null) {
+      deletePersisted(token);
+    }
+  }
+
+  /**
+   * @return The number of sessions held, expired or not
+   */
+  public int size() {
+    return sessions.size();
+  }
+
+  /**
+   * Removes expired sessions, from memory and from the database.
+   */
+  @Scheduled(fixedDelayString = "${labyrinth.session.sweep-ms:60000}")
+  public void sweep() {
+    long now = System.currentTimeMillis();
+    removeExpired(now);
+    if (persist) {
+      try {
+        loginSessionRepository.deleteAllByCreatedAtBefore(Instant.ofEpochMilli(now - ttlMs));
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private void removeExpired(long now) {
+    sessions.forEach((token, session) -> {
+      if (session.isExpired(now, ttlMs, idleMs)) {
+        remove(token, session, expired);
+      }
+    });
+  }
+
+  private void evictLeastRecentlyUsed() {
+    // only reached when full of live sessions, so the scan is rare
+    while (sessions.size() >= maxSessions) {
+      UUID oldestToken = null;
+      Session oldest = null;
+      for (Map.Entry<UUID, Session> entry : sessions.entrySet()) {
+        if (oldest == null || entry.getValue().lastUsed < oldest.lastUsed) {
+          oldestToken = entry.getKey();
+          oldest = entry.getValue();
+        }
+      }
+      if (oldest == null) {
+        return;
+      }
+      remove(oldestToken, oldest, evicted);
+    }
+  }
+
+  private void remove(UUID token, Session session, Counter reason) {
+    // only counts once if several threads find the same expired session
+    if (sessions.remove(token, session)) {
+      reason.increment();
+      deletePersisted(token);
+    }
+  }
+
+  private void deletePersisted(UUID token) {
+    if (persist) {
+      try {
+        loginSessionRepository.deleteById(token);
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * A logged in account and when its session was created and last used.
+   */
+  private static class Session {
+    final Account account;
+    final long createdAt;
+    volatile long lastUsed;
+
+    Session(Account account, long createdAt, long lastUsed) {
+      this.account = account;
+      this.createdAt = createdAt;
+      this.lastUsed = lastUsed;
+    }
+
+    boolean isExpired(long now, long ttlMs, long idleMs) {
+      return now - createdAt > ttlMs || now - lastUsed > idleMs;
+    }
+  }
+}
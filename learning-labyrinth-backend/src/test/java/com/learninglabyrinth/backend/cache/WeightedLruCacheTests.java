@@ -0,0 +1,43 @@
+package com.learninglabyrinth.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class WeightedLruCacheTests {
+
+	@Test
+	void evictsLeastRecentlyUsedWhenOverWeight() {
+		WeightedLruCache<String, String> cache = new WeightedLruCache<>(6, String::length);
+		cache.put("a", "aa");
+		cache.put("b", "bb");
+		cache.put("c", "cc");
+		assertNotNull(cache.get("a"));
+		cache.put("d", "dd");
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertEquals(6, cache.weight());
+		assertEquals(1, cache.evictionCount());
+		assertEquals(2, cache.hitCount());
+		assertEquals(1, cache.missCount());
+	}
+
+	@Test
+	void doesNotStoreValuesHeavierThanTheCache() {
+		WeightedLruCache<String, String> cache = new WeightedLruCache<>(2, String::length);
+		cache.put("a", "aaa");
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void tooHeavyValueReplacesTheOldOne() {
+		WeightedLruCache<String, String> cache = new WeightedLruCache<>(2, String::length);
+		cache.put("a", "aa");
+		cache.put("a", "aaa");
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+	}
+}
@@ -0,0 +1,33 @@
+package com.learninglabyrinth.backend.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.learninglabyrinth.backend.robot.MovementEnum;
+
+class MovementListConverterTests {
+
+	@Test
+	void roundTripsRunsLongerThanOneByte() {
+		List<MovementEnum> movements = new ArrayList<>();
+		movements.add(MovementEnum.ROTATE_RIGHT);
+		movements.addAll(Collections.nCopies(70, MovementEnum.FORWARD));
+		movements.add(MovementEnum.ROTATE_LEFT);
+		movements.add(MovementEnum.BACKWARD);
+		movements.add(MovementEnum.FAILURE);
+		byte[] runs = MovementListConverter.encode(movements);
+		// 1 + 3 bytes for the 70 forward moves + 1 + 1 + 1
+		assertEquals(7, runs.length);
+		assertEquals(movements, MovementListConverter.decode(runs));
+	}
+
+	@Test
+	void roundTripsEmptyHistory() {
+		assertEquals(List.of(), MovementListConverter.decode(MovementListConverter.encode(List.of())));
+	}
+}
@@ -0,0 +1,26 @@
+package com.learninglabyrinth.backend.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.learninglabyrinth.backend.models.MazeLayout;
+
+class RobotClassTests {
+
+	@Test
+	void countsScansApartFromMoves() {
+		MazeLayout maze = new MazeLayout();
+		maze.layout = "213010000";
+		maze.size = 3;
+		RobotClass robot = new RobotClass(maze);
+		robot.rotateRight();
+		robot.moveForward();
+		robot.moveForward();
+		assertEquals(0, robot.getNumScans());
+		assertEquals(GridTypeEnum.PATH, robot.scanLeft());
+		robot.scanForward();
+		assertEquals(2, robot.getNumScans());
+		assertEquals(5, robot.getNumActions());
+	}
+}
@@ -0,0 +1,67 @@
+package com.learninglabyrinth.backend.runner;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class DeterminismCheckTests {
+
+	private static boolean isDeterministic(String code) throws Exception {
+		UserClassLoader classLoader = new UserClassLoader();
+		classLoader.loadClass("UserCode", UserCodeWrapper.top + code + UserCodeWrapper.bottom);
+		Map<String, byte[]> compiledClasses = classLoader.getCompiledClasses();
+		return DeterminismCheck.isDeterministic(compiledClasses);
+	}
+
+	@Test
+	void allowsCodeThatOnlyDrivesTheRobot() throws Exception {
+		assertTrue(isDeterministic("while (true) {\n"
+				+ "  if (robot.scanRight() != GridTypeEnum.WALL) { robot.rotateRight(); }\n"
+				+ "  robot.moveForward();\n"
+				+ "}\n"));
+		assertTrue(isDeterministic("List<Integer> turns = new ArrayList<>();\n"
+				+ "java.util.Map<String, Integer> seen = new java.util.TreeMap<>();\n"
+				+ "for (int i = 0; i < 3; ++i) { turns.add(i); seen.put(\"cell\" + i, i); }\n"
+				+ "turns.sort((a, b) -> b - a);\n"
+				+ "System.out.println(\"turns \" + turns.size() + \" \" + \"a\".hashCode());\n"
+				+ "if (\"left\".equals(String.valueOf(3))) robot.rotateLeft();\n"
+				+ "robot.moveForward();\n"));
+	}
+
+	@Test
+	void rejectsRandomnessHoweverItIsWritten() throws Exception {
+		assertFalse(isDeterministic("if (Math .random () < 0.5) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("List<Integer> l = new ArrayList<>(List.of(1, 2));\n"
+				+ "java.util.Collections.shuffle(l);\n"));
+		assertFalse(isDeterministic("if (java.util.UUID.randomUUID().hashCode() > 0) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("if (System.nanoTime() % 2 == 0) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("new Thread(() -> robot.rotateLeft()).start();\n"));
+	}
+
+	@Test
+	void rejectsIdentityHashCodes() throws Exception {
+		assertFalse(isDeterministic("int[] a = new int[1];\n"
+				+ "if ((\"\" + a).length() % 2 == 0) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("Object o = new Object();\n"
+				+ "if (o.toString().endsWith(\"0\")) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("java.util.Set<Object> s = new java.util.HashSet<>();\n"
+				+ "s.add(new Object());\n"));
+		assertFalse(isDeterministic("if (String.valueOf(new Object()).length() > 20) robot.rotateLeft();\n"));
+		assertFalse(isDeterministic("for (Integer i : java.util.Set.of(1, 2, 3)) robot.rotateLeft();\n"));
+	}
+
+	@Test
+	void rejectsReflection() throws Exception {
+		assertFalse(isDeterministic("Class.forName(\"java.lang.Math\");\n"));
+		assertFalse(isDeterministic("robot.getClass().getDeclaredFields();\n"));
+	}
+
+	@Test
+	void rejectsMissingOrBrokenClasses() {
+		assertFalse(DeterminismCheck.isDeterministic(Map.of()));
+		assertFalse(DeterminismCheck.isDeterministic(Map.of("UserCode", new byte[] {1, 2, 3})));
+	}
+}
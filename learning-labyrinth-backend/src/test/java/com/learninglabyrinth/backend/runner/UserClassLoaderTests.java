@@ -0,0 +1,31 @@
+package com.learninglabyrinth.backend.runner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class UserClassLoaderTests {
+
+	@Test
+	void loadsClassWithNestedClassesFromMemory() throws Exception {
+		String code = "public class UserCode {\n"
+				+ "  static class Helper { int value() { return 7; } }\n"
+				+ "  public int run() { return new Helper().value(); }\n"
+				+ "}\n";
+		Class<?> userCode = new UserClassLoader().loadClass("UserCode", code);
+		Object instance = userCode.getDeclaredConstructor().newInstance();
+		assertEquals(7, userCode.getMethod("run").invoke(instance));
+	}
+
+	@Test
+	void reportsCompilationErrorsAsDiagnostics() {
+		String code = "public class UserCode {\n"
+				+ "  void run() { robot.fly(); }\n"
+				+ "}\n";
+		CompilationFailedException e = assertThrows(CompilationFailedException.class,
+				() -> new UserClassLoader().loadClass("UserCode", code));
+		assertEquals(1, e.getDiagnostics().size());
+		assertEquals(2, e.getDiagnostics().get(0).line);
+	}
+}
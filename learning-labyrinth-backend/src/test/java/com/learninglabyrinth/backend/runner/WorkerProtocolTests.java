@@ -0,0 +1,74 @@
+package com.learninglabyrinth.backend.runner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.learninglabyrinth.backend.models.AttemptOutcomeEnum;
+import com.learninglabyrinth.backend.robot.MovementEnum;
+import com.learninglabyrinth.backend.robot.MovementRecorder;
+
+class WorkerProtocolTests {
+
+	private static DataInputStream frame(ByteArrayOutputStream bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test
+	void readsResultThatStartsWithItsJobId() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		MovementRecorder movements = new MovementRecorder();
+		movements.add(MovementEnum.FORWARD);
+		movements.add(MovementEnum.SUCCESS);
+		WorkerProtocol.writeJobId(out, 42);
+		WorkerProtocol.writeResult(out, AttemptOutcomeEnum.SUCCESS, movements);
+		WorkerProtocol.writeClasses(out, Map.of("UserCode", new byte[] {1, 2, 3}));
+		DataInputStream in = frame(bytes);
+		WorkerProtocol.readJobId(in, 42);
+		assertEquals(AttemptOutcomeEnum.SUCCESS, WorkerProtocol.readOutcome(in));
+		assertEquals(List.of(MovementEnum.FORWARD, MovementEnum.SUCCESS),
+				WorkerProtocol.readMovements(in, 1));
+		assertEquals(3, WorkerProtocol.readClasses(in).get("UserCode").length);
+	}
+
+	@Test
+	void rejectsFrameWrittenByUserCodeBeforeReadingAnyLength() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		// what user code could write to standard output before the real result
+		out.writeByte(0);
+		out.writeInt(-1);
+		WorkerProtocol.writeJobId(out, 42);
+		assertThrows(IOException.class, () -> WorkerProtocol.readJobId(frame(bytes), 42));
+	}
+
+	@Test
+	void rejectsLengthsOutOfRange() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(-1);
+		assertThrows(IOException.class, () -> WorkerProtocol.readMovements(frame(bytes), 10));
+		assertThrows(IOException.class, () -> WorkerProtocol.readString(frame(bytes)));
+		assertThrows(IOException.class, () -> WorkerProtocol.readClasses(frame(bytes)));
+
+		bytes.reset();
+		out.writeInt(12);
+		// more movements than 10 actions can record
+		assertThrows(IOException.class, () -> WorkerProtocol.readMovements(frame(bytes), 10));
+
+		bytes.reset();
+		out.writeInt(Integer.MAX_VALUE);
+		assertThrows(IOException.class, () -> WorkerProtocol.readString(frame(bytes)));
+		assertThrows(IOException.class, () -> WorkerProtocol.readClasses(frame(bytes)));
+	}
+}
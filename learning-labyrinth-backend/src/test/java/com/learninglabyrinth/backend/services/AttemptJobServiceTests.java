@@ -0,0 +1,70 @@
+package com.learninglabyrinth.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.learninglabyrinth.backend.dto.AttemptJobStatus;
+import com.learninglabyrinth.backend.models.AttemptJobStateEnum;
+import com.learninglabyrinth.backend.models.MazeAttempt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AttemptJobServiceTests {
+
+	@Test
+	void finishedJobIsDoneWithItsAttemptEvenInsideCompletionCallbacks() throws Exception {
+		MazeAttemptService attempts = mock(MazeAttemptService.class);
+		MazeAttempt attempt = new MazeAttempt(1L, 2L, "robot.moveForward();");
+		when(attempts.createMazeAttempt(any(), any(), anyString(), anyBoolean())).thenReturn(attempt);
+		AttemptJobService jobs = new AttemptJobService(attempts, new SimpleMeterRegistry(), 1, 1, 60);
+		UUID jobId = jobs.submit(UUID.randomUUID(), 1L, "robot.moveForward();", false);
+		// the job stream reads the status from a callback of the result
+		CompletableFuture<AttemptJobStatus> seen = jobs.getResult(jobId)
+				.handle((result, error) -> jobs.getStatus(jobId));
+		AttemptJobStatus status = seen.get(5, TimeUnit.SECONDS);
+		assertEquals(AttemptJobStateEnum.DONE, status.status);
+		assertEquals(attempt, status.attempt);
+		jobs.shutdown();
+	}
+
+	@Test
+	void failedJobSaysWhy() throws Exception {
+		MazeAttemptService attempts = mock(MazeAttemptService.class);
+		when(attempts.createMazeAttempt(any(), any(), anyString(), anyBoolean()))
+				.thenThrow(new NoSuchElementException("No maze with the id 7 exists"));
+		AttemptJobService jobs = new AttemptJobService(attempts, new SimpleMeterRegistry(), 1, 1, 60);
+		UUID jobId = jobs.submit(UUID.randomUUID(), 7L, "robot.moveForward();", false);
+		jobs.getResult(jobId).handle((result, error) -> error).get(5, TimeUnit.SECONDS);
+		AttemptJobStatus status = jobs.getStatus(jobId);
+		assertEquals(AttemptJobStateEnum.FAILED, status.status);
+		assertNotNull(status.error);
+		assertEquals("No maze with the id 7 exists", status.error);
+		jobs.shutdown();
+	}
+
+	@Test
+	void jobThatThrowsAnErrorStillFails() throws Exception {
+		MazeAttemptService attempts = mock(MazeAttemptService.class);
+		when(attempts.createMazeAttempt(any(), any(), anyString(), anyBoolean()))
+				.thenThrow(new StackOverflowError());
+		AttemptJobService jobs = new AttemptJobService(attempts, new SimpleMeterRegistry(), 1, 1, 60);
+		UUID jobId = jobs.submit(UUID.randomUUID(), 7L, "robot.moveForward();", false);
+		jobs.getResult(jobId).handle((result, error) -> error).get(5, TimeUnit.SECONDS);
+		AttemptJobStatus status = jobs.getStatus(jobId);
+		assertEquals(AttemptJobStateEnum.FAILED, status.status);
+		assertEquals("StackOverflowError", status.error);
+		jobs.shutdown();
+	}
+}
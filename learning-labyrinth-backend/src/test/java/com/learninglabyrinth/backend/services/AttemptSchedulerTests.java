@@ -0,0 +1,62 @@
+package com.learninglabyrinth.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AttemptSchedulerTests {
+
+	@Test
+	void servesActualRunsFirstThenAccountsInTurn() throws Exception {
+		AttemptScheduler scheduler = new AttemptScheduler(new SimpleMeterRegistry(), 1);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// occupy the only slot while the other attempts queue up
+		Thread holder = new Thread(() -> scheduler.run(0, true, () -> {
+			holding.countDown();
+			await(release);
+			return null;
+		}));
+		holder.start();
+		holding.await();
+
+		List<Thread> waiters = new ArrayList<>();
+		String[] submissions = {"1-test", "1-test", "1-test", "2-test", "3-actual"};
+		for (String submission : submissions) {
+			long accountId = Long.parseLong(submission.substring(0, 1));
+			boolean isActualRun = submission.endsWith("actual");
+			int waitingBefore = scheduler.getWaiting();
+			Thread waiter = new Thread(() -> scheduler.run(accountId, isActualRun, () -> order.add(submission)));
+			waiter.start();
+			waiters.add(waiter);
+			while (scheduler.getWaiting() == waitingBefore) {
+				Thread.sleep(1);
+			}
+		}
+
+		release.countDown();
+		holder.join();
+		for (Thread waiter : waiters) {
+			waiter.join();
+		}
+		assertEquals(List.of("3-actual", "1-test", "2-test", "1-test", "1-test"), order);
+		assertEquals(0, scheduler.getRunning());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
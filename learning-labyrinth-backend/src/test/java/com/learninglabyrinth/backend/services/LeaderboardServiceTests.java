@@ -0,0 +1,52 @@
+package com.learninglabyrinth.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.learninglabyrinth.backend.models.LeaderboardEntry;
+import com.learninglabyrinth.backend.repositories.LeaderboardRepository;
+import com.learninglabyrinth.backend.repositories.MazeAttemptRepository;
+
+class LeaderboardServiceTests {
+
+	@Test
+	void failedSaveKeepsTheOldScore() {
+		LeaderboardEntry best = new LeaderboardEntry();
+		best.id = 1L;
+		best.mazeId = 3L;
+		best.accountId = 5L;
+		best.numMoves = 20;
+		best.date = LocalDateTime.of(2023, 1, 1, 0, 0);
+		LeaderboardRepository repository = mock(LeaderboardRepository.class);
+		when(repository.findAllByMazeId(3L)).thenReturn(List.of(best));
+		when(repository.save(any())).thenThrow(new DataIntegrityViolationException("down"));
+		LeaderboardService service = new LeaderboardService(repository, mock(MazeAttemptRepository.class));
+
+		service.recordSuccess(3L, 5L, 10, LocalDateTime.of(2023, 2, 1, 0, 0));
+
+		List<LeaderboardEntry> top = service.getTop(3L, 10);
+		assertEquals(1, top.size());
+		assertEquals(20, top.get(0).numMoves);
+	}
+
+	@Test
+	void topEntriesAreCopies() {
+		LeaderboardRepository repository = mock(LeaderboardRepository.class);
+		when(repository.findAllByMazeId(3L)).thenReturn(List.of());
+		when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		LeaderboardService service = new LeaderboardService(repository, mock(MazeAttemptRepository.class));
+		service.recordSuccess(3L, 5L, 10, LocalDateTime.of(2023, 2, 1, 0, 0));
+
+		service.getTop(3L, 10).get(0).numMoves = 1;
+
+		assertEquals(10, service.getTop(3L, 10).get(0).numMoves);
+	}
+}
@@ -0,0 +1,75 @@
+package com.learninglabyrinth.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHasherTests {
+
+	// their pool threads are not daemons, so every hasher must be shut down
+	private final List<PasswordHasher> hashers = new ArrayList<>();
+
+	@AfterEach
+	void shutDownHashers() {
+		for (PasswordHasher hasher : hashers) {
+			hasher.shutdown();
+		}
+	}
+
+	private PasswordHasher hasher(int iterations) {
+		return hasher(iterations, 10);
+	}
+
+	private PasswordHasher hasher(int iterations, int queueCapacity) {
+		PasswordHasher hasher = new PasswordHasher(new SimpleMeterRegistry(), iterations, 1,
+				queueCapacity, 10000, 100);
+		hashers.add(hasher);
+		return hasher;
+	}
+
+	@Test
+	void matchesOnlyTheEncodedPassword() {
+		PasswordHasher hasher = hasher(1000);
+		String stored = hasher.encode("hunter2");
+		assertNotEquals(stored, hasher.encode("hunter2"));
+		assertTrue(hasher.matches("hunter2", stored));
+		// the second check is answered from the login cache
+		assertTrue(hasher.matches("hunter2", stored));
+		assertFalse(hasher.matches("hunter3", stored));
+		assertFalse(hasher.needsRehash(stored));
+		assertTrue(hasher(2000).needsRehash(stored));
+	}
+
+	@Test
+	void acceptsLegacyHashesUntilRehashed() {
+		PasswordHasher hasher = hasher(1000);
+		String legacy = Integer.toString("hunter2".hashCode());
+		assertTrue(hasher.matches("hunter2", legacy));
+		assertFalse(hasher.matches("hunter3", legacy));
+		assertTrue(hasher.needsRehash(legacy));
+	}
+
+	@Test
+	void encodesManyPasswordsInOrderWithoutFillingTheQueue() {
+		// one thread and a queue of one, so only chunking keeps this from being rejected
+		PasswordHasher hasher = hasher(1000, 1);
+		List<String> passwords = new ArrayList<>();
+		for (int i = 0; i < 25; ++i) {
+			passwords.add("password" + i);
+		}
+		List<String> hashes = hasher.encodeAll(passwords);
+		assertEquals(passwords.size(), hashes.size());
+		for (int i = 0; i < passwords.size(); ++i) {
+			assertTrue(hasher.matches(passwords.get(i), hashes.get(i)));
+		}
+	}
+}
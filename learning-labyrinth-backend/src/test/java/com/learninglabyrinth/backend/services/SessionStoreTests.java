@@ -0,0 +1,59 @@
+package com.learninglabyrinth.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.learninglabyrinth.backend.models.Account;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SessionStoreTests {
+
+	private static Account account(long id) {
+		Account account = new Account();
+		account.id = id;
+		return account;
+	}
+
+	@Test
+	void expiresIdleSessions() throws InterruptedException {
+		SessionStore store = new SessionStore(null, null, new SimpleMeterRegistry(), 60, 0, 10, false);
+		UUID token = UUID.randomUUID();
+		store.put(token, account(1));
+		Thread.sleep(5);
+		assertNull(store.get(token));
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenFull() throws InterruptedException {
+		SessionStore store = new SessionStore(null, null, new SimpleMeterRegistry(), 60, 60, 2, false);
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		UUID third = UUID.randomUUID();
+		store.put(first, account(1));
+		Thread.sleep(5);
+		store.put(second, account(2));
+		Thread.sleep(5);
+		store.put(third, account(3));
+		assertFalse(store.containsKey(first));
+		assertEquals(2, store.get(second).id);
+		assertEquals(3, store.get(third).id);
+	}
+
+	@Test
+	void replaceKeepsSession() {
+		SessionStore store = new SessionStore(null, null, new SimpleMeterRegistry(), 60, 60, 10, false);
+		UUID token = UUID.randomUUID();
+		store.put(token, account(1));
+		Account updated = account(1);
+		store.replace(token, updated);
+		assertSame(updated, store.get(token));
+	}
+}